@@ -0,0 +1,87 @@
+package ru.bitsouth.libs.springstellarauthstarter.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.stellar.sdk.KeyPair;
+import org.stellar.sdk.Network;
+import org.stellar.sdk.Transaction;
+import ru.bitsouth.libs.springstellarauthstarter.SpringStellarAuthStarterApplication;
+import ru.bitsouth.libs.springstellarauthstarter.services.JwtTokenCreator;
+import ru.bitsouth.libs.springstellarauthstarter.services.JwtTokenVerifier;
+import ru.bitsouth.libs.springstellarauthstarter.services.RefreshTokenService;
+import ru.bitsouth.libs.springstellarauthstarter.services.jwt.JwtKeySet;
+import ru.bitsouth.libs.springstellarauthstarter.services.StellarAuthService;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+@State(Scope.Benchmark)
+public class AuthBenchmarkState {
+    public static final String HOME_DOMAIN = "Sample auth";
+    private static final int SIGNED_CHALLENGES = 1024;
+
+    ConfigurableApplicationContext context;
+    StellarAuthService service;
+    JwtTokenCreator jwtTokenCreator;
+    JwtTokenVerifier jwtTokenVerifier;
+    JwtKeySet jwtKeySet;
+    RefreshTokenService refreshTokenService;
+    KeyPair clientKeyPair;
+    String account;
+    String challenge;
+    String[] signedChallenges;
+    String txHash;
+    String token;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = new SpringApplicationBuilder(BenchmarkConfiguration.class, SpringStellarAuthStarterApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties(
+                        "spring.stellar.auth.jwt-token-secret=benchmark-secret",
+                        "spring.stellar.auth.challenge-expire-in=86400",
+                        "spring.stellar.auth.rate-limit.enabled=false",
+                        "spring.stellar.auth.jwt.algorithm=" + System.getProperty("bench.jwtAlgorithm", "HS512"),
+                        "logging.level.ru.bitsouth.libs=" + System.getProperty("bench.logLevel", "WARN")
+                )
+                .run();
+        service = context.getBean(StellarAuthService.class);
+        jwtTokenCreator = context.getBean(JwtTokenCreator.class);
+        jwtTokenVerifier = context.getBean(JwtTokenVerifier.class);
+        jwtKeySet = context.getBean(JwtKeySet.class);
+        refreshTokenService = context.getBean(RefreshTokenService.class);
+
+        clientKeyPair = KeyPair.random();
+        account = clientKeyPair.getAccountId();
+        challenge = service.getChallenge(account, HOME_DOMAIN);
+
+        signedChallenges = new String[SIGNED_CHALLENGES];
+        for (int i = 0; i < SIGNED_CHALLENGES; i++) {
+            signedChallenges[i] = sign(service.getChallenge(account, HOME_DOMAIN), clientKeyPair);
+        }
+        txHash = Long.toHexString(ThreadLocalRandom.current().nextLong());
+        token = jwtTokenCreator.issue(account, txHash);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    String nextSignedChallenge() {
+        return signedChallenges[ThreadLocalRandom.current().nextInt(SIGNED_CHALLENGES)];
+    }
+
+    static String sign(String challenge, KeyPair keyPair) throws IOException {
+        Transaction transaction = (Transaction) Transaction.fromEnvelopeXdr(challenge, Network.PUBLIC);
+        transaction.sign(keyPair);
+        return transaction.toEnvelopeXdrBase64();
+    }
+}
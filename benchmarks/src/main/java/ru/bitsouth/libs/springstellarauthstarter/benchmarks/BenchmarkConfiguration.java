@@ -0,0 +1,18 @@
+package ru.bitsouth.libs.springstellarauthstarter.benchmarks;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.bitsouth.libs.springstellarauthstarter.services.ConsumedChallengeRegistry;
+
+/**
+ * Lets {@link JwtTokenBenchmark} verify the same pre-signed challenges repeatedly;
+ * the registry itself is measured by {@link ConsumedChallengeRegistryBenchmark}.
+ */
+@Configuration
+public class BenchmarkConfiguration {
+
+    @Bean
+    public ConsumedChallengeRegistry consumedChallengeRegistry() {
+        return (hash, expiresAt) -> true;
+    }
+}
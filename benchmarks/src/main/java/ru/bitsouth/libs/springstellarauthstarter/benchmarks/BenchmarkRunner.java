@@ -0,0 +1,49 @@
+package ru.bitsouth.libs.springstellarauthstarter.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the selected benchmarks (all by default) at 1, 2, 4 ... N threads with the GC profiler,
+ * so every run reports throughput, sampled latency percentiles (p99 included) and allocation rate.
+ * <p>
+ * {@code mvn install && mvn -f benchmarks/pom.xml package && java -jar benchmarks/target/benchmarks.jar [jmh options]}
+ * <p>
+ * N defaults to the number of available processors and can be set with {@code -Dbench.maxThreads}.
+ * Results are written to {@code jmh-result-t<threads>.json} in the working directory.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        int maxThreads = Integer.getInteger("bench.maxThreads", Runtime.getRuntime().availableProcessors());
+
+        for (int threads : threadCounts(maxThreads)) {
+            new Runner(new OptionsBuilder()
+                    .parent(commandLineOptions)
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("jmh-result-t" + threads + ".json")
+                    .build()
+            ).run();
+        }
+    }
+
+    private static List<Integer> threadCounts(int maxThreads) {
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(Math.max(1, maxThreads));
+        return counts;
+    }
+}
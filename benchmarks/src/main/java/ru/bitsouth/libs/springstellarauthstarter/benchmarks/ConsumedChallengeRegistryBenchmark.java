@@ -0,0 +1,84 @@
+package ru.bitsouth.libs.springstellarauthstarter.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.bitsouth.libs.springstellarauthstarter.services.ConsumedChallengeRegistry;
+import ru.bitsouth.libs.springstellarauthstarter.services.InMemoryConsumedChallengeRegistry;
+import ru.bitsouth.libs.springstellarauthstarter.services.MappedFileConsumedChallengeRegistry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConsumedChallengeRegistryBenchmark {
+    @Param({"262144"})
+    private int capacity;
+
+    @Param({"memory", "file"})
+    private String store;
+
+    private ConsumedChallengeRegistry registry;
+    private Path file;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        if ("file".equals(store)) {
+            file = Files.createTempFile("replay", ".bin");
+            Files.delete(file);
+            registry = new MappedFileConsumedChallengeRegistry(file, capacity);
+        } else {
+            registry = new InMemoryConsumedChallengeRegistry(capacity);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        if (registry instanceof Closeable) {
+            ((Closeable) registry).close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Hashes {
+        byte[][] values = new byte[4096][32];
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            for (byte[] value : values) {
+                ThreadLocalRandom.current().nextBytes(value);
+            }
+        }
+
+        byte[] next() {
+            return values[next++ & (values.length - 1)];
+        }
+    }
+
+    @Benchmark
+    public boolean markConsumed(Hashes hashes) {
+        // already expired entries keep slots reusable, so the table never fills up during measurement
+        return registry.markConsumed(hashes.next(), 0);
+    }
+}
@@ -0,0 +1,98 @@
+package ru.bitsouth.libs.springstellarauthstarter.benchmarks;
+
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.bitsouth.libs.springstellarauthstarter.services.BatchResult;
+import ru.bitsouth.libs.springstellarauthstarter.services.IssuedTokens;
+import ru.bitsouth.libs.springstellarauthstarter.services.TokenRevocationList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class JwtTokenBenchmark {
+    private static final int BATCH_SIZE = 16;
+
+    @Benchmark
+    public String getJwtToken(AuthBenchmarkState state) {
+        return state.service.getJwtToken(state.nextSignedChallenge());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<BatchResult<String>> getJwtTokens(AuthBenchmarkState state) {
+        List<String> transactions = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            transactions.add(state.nextSignedChallenge());
+        }
+        return state.service.getJwtTokens(transactions);
+    }
+
+    @State(Scope.Thread)
+    public static class Session {
+        String refreshToken;
+
+        @Setup(Level.Trial)
+        public void setUp(AuthBenchmarkState state) {
+            refreshToken = state.refreshTokenService.issue(state.account, Long.toHexString(System.nanoTime()));
+        }
+    }
+
+    @Benchmark
+    public IssuedTokens refresh(AuthBenchmarkState state, Session session) {
+        IssuedTokens tokens = state.refreshTokenService.refresh(session.refreshToken);
+        session.refreshToken = tokens.getRefreshToken();
+        return tokens;
+    }
+
+    @Benchmark
+    public String issue(AuthBenchmarkState state) {
+        return state.jwtTokenCreator.issue(state.account, state.txHash);
+    }
+
+    @Benchmark
+    public Claims verify(AuthBenchmarkState state) {
+        return state.jwtTokenVerifier.verify(state.token);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Revocations {
+        @Setup(Level.Trial)
+        public void setUp(AuthBenchmarkState state) {
+            TokenRevocationList list = state.context.getBean(TokenRevocationList.class);
+            long expiresAt = System.currentTimeMillis() / 1000L + 86400;
+            for (int i = 0; i < 100000; i++) {
+                list.revokeToken(Long.toHexString(ThreadLocalRandom.current().nextLong()), expiresAt);
+            }
+            list.sweep();
+        }
+    }
+
+    @Benchmark
+    public Claims verifyWithRevocations(AuthBenchmarkState state, Revocations revocations) {
+        return state.jwtTokenVerifier.verify(state.token);
+    }
+
+    @Benchmark
+    public Claims verifyUncached(AuthBenchmarkState state) {
+        return state.jwtKeySet.verify(state.token);
+    }
+}
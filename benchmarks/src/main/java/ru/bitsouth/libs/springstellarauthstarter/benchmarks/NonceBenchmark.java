@@ -0,0 +1,56 @@
+package ru.bitsouth.libs.springstellarauthstarter.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.bitsouth.libs.springstellarauthstarter.services.NonceSource;
+import ru.bitsouth.libs.springstellarauthstarter.services.xdr.ChallengeTemplate;
+
+import java.security.SecureRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Challenge nonce generation on all cores: the former {@link ThreadLocalRandom} nonce, which is not secure,
+ * a shared {@link SecureRandom} read per challenge, and the batched {@link NonceSource}.
+ * Run with {@link ChallengeBenchmark} to see the share of the nonce in a whole challenge.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class NonceBenchmark {
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final NonceSource nonceSource = new NonceSource(
+            ChallengeTemplate.NONCE_LENGTH, 128, Runtime.getRuntime().availableProcessors() * 2
+    );
+
+    @Benchmark
+    public byte[] threadLocalRandom() {
+        byte[] nonce = new byte[ChallengeTemplate.NONCE_LENGTH];
+        ThreadLocalRandom.current().nextBytes(nonce);
+        return nonce;
+    }
+
+    @Benchmark
+    public byte[] secureRandomPerCall() {
+        byte[] nonce = new byte[ChallengeTemplate.NONCE_LENGTH];
+        secureRandom.nextBytes(nonce);
+        return nonce;
+    }
+
+    @Benchmark
+    public byte[] nonceSource() {
+        return nonceSource.next();
+    }
+}
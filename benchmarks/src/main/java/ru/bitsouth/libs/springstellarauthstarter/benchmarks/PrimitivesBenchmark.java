@@ -0,0 +1,96 @@
+package ru.bitsouth.libs.springstellarauthstarter.benchmarks;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.stellar.sdk.AbstractTransaction;
+import org.stellar.sdk.KeyPair;
+import org.stellar.sdk.Network;
+import org.stellar.sdk.Transaction;
+import ru.bitsouth.libs.springstellarauthstarter.services.xdr.ChallengeTransaction;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits the round trip into ed25519, XDR and JJWT stages, so the full-path numbers
+ * of {@link ChallengeBenchmark} and {@link JwtTokenBenchmark} can be attributed.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrimitivesBenchmark {
+    private KeyPair keyPair;
+    private byte[] hash;
+    private byte[] signature;
+    private String signedChallenge;
+    private Transaction transaction;
+    private byte[] networkId;
+
+    @Setup(Level.Trial)
+    public void setUp(AuthBenchmarkState state) throws IOException {
+        keyPair = state.clientKeyPair;
+        hash = new byte[32];
+        ThreadLocalRandom.current().nextBytes(hash);
+        signature = keyPair.sign(hash);
+        signedChallenge = state.nextSignedChallenge();
+        transaction = (Transaction) Transaction.fromEnvelopeXdr(signedChallenge, Network.PUBLIC);
+        networkId = Network.PUBLIC.getNetworkId();
+    }
+
+    @Benchmark
+    public byte[] ed25519Sign() {
+        return keyPair.sign(hash);
+    }
+
+    @Benchmark
+    public boolean ed25519Verify() {
+        return keyPair.verify(hash, signature);
+    }
+
+    @Benchmark
+    public AbstractTransaction xdrDecode() throws IOException {
+        return Transaction.fromEnvelopeXdr(signedChallenge, Network.PUBLIC);
+    }
+
+    @Benchmark
+    public byte[] challengeDecodeAndHash() {
+        return ChallengeTransaction.fromEnvelopeXdrBase64(signedChallenge).hash(networkId);
+    }
+
+    @Benchmark
+    public String xdrEncode() {
+        return transaction.toEnvelopeXdrBase64();
+    }
+
+    @Benchmark
+    public byte[] txHash() {
+        return transaction.hash();
+    }
+
+    @Benchmark
+    public String jwtCompact() {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setSubject(keyPair.getAccountId())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + 3600_000L))
+                .signWith(SignatureAlgorithm.HS512, "benchmark-secret")
+                .compact();
+    }
+}
@@ -0,0 +1,159 @@
+package ru.bitsouth.libs.springstellarauthstarter.benchmarks.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.stellar.sdk.Network;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives the SEP-10 login of simulated wallets against a running server: {@code GET /auth}, sign the challenge,
+ * {@code POST /auth}. Every login picks a random wallet; a share of them signs with a wrong key or posts its
+ * signed challenge twice, so the rejection paths are loaded too.
+ */
+class LoadTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String baseUrl;
+    private final int wallets;
+    private final int concurrency;
+    private final int logins;
+    private final double badSignatureRate;
+    private final double replayRate;
+
+    LoadTest(String baseUrl, int wallets, int concurrency, int logins, double badSignatureRate, double replayRate) {
+        this.baseUrl = baseUrl;
+        this.wallets = wallets;
+        this.concurrency = concurrency;
+        this.logins = logins;
+        this.badSignatureRate = badSignatureRate;
+        this.replayRate = replayRate;
+    }
+
+    LoadTestResult run() throws InterruptedException {
+        List<SimulatedWallet> simulated = new ArrayList<>(wallets);
+        for (int i = 0; i < wallets; i++) {
+            simulated.add(new SimulatedWallet());
+        }
+
+        LoadTestResult result = new LoadTestResult();
+        AtomicInteger remaining = new AtomicInteger(logins);
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        List<Future<?>> workers = new ArrayList<>(concurrency);
+        long start = System.nanoTime();
+        for (int i = 0; i < concurrency; i++) {
+            workers.add(executor.submit(() -> {
+                while (remaining.getAndDecrement() > 0) {
+                    login(simulated.get(ThreadLocalRandom.current().nextInt(wallets)), result);
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Load test worker failed.", e.getCause());
+            }
+        }
+        result.setElapsedNanos(System.nanoTime() - start);
+        executor.shutdown();
+        return result;
+    }
+
+    private void login(SimulatedWallet wallet, LoadTestResult result) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long start = System.nanoTime();
+        try {
+            String account = URLEncoder.encode(wallet.getAccountId(), "UTF-8");
+            Response challenge = send("GET", "/auth?account=" + account, null);
+            long challengeEnd = System.nanoTime();
+            result.challengeLatency.recordValue(challengeEnd - start);
+            if (challenge.status != 200) {
+                result.recordOutcome("challenge_" + challenge.status);
+                return;
+            }
+
+            Network network = new Network(challenge.body.path("networkPassphrase").asText());
+            String transaction = challenge.body.path("transaction").asText();
+            boolean badSignature = random.nextDouble() < badSignatureRate;
+            String signed = badSignature ? wallet.signWrong(transaction, network) : wallet.sign(transaction, network);
+
+            long tokenStart = System.nanoTime();
+            Response token = send("POST", "/auth", signed);
+            long end = System.nanoTime();
+            result.tokenLatency.recordValue(end - tokenStart);
+            result.loginLatency.recordValue(end - start);
+            if (token.status != 200) {
+                result.recordOutcome((badSignature ? "bad_signature_" : "token_") + token.status);
+                return;
+            }
+            result.logins.increment();
+            result.recordOutcome(badSignature ? "bad_signature_accepted" : "ok");
+
+            if (random.nextDouble() < replayRate) {
+                Response replay = send("POST", "/auth", signed);
+                result.recordOutcome(replay.status == 200 ? "replay_accepted" : "replay_" + replay.status);
+            }
+        } catch (IOException e) {
+            result.recordOutcome("io_error");
+        }
+    }
+
+    private Response send(String method, String path, String transaction) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setRequestProperty("Accept", "application/json");
+        if (transaction != null) {
+            ObjectNode request = MAPPER.createObjectNode().put("transaction", transaction);
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream()) {
+                MAPPER.writeValue(out, request);
+            }
+        }
+        int status = connection.getResponseCode();
+        InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        byte[] body = read(in);
+        return new Response(status, status == 200 ? MAPPER.readTree(body) : null);
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        if (in == null) {
+            return new byte[0];
+        }
+        try (InputStream stream = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int read; (read = stream.read(buffer)) > 0; ) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static class Response {
+        private final int status;
+        private final JsonNode body;
+
+        private Response(int status, JsonNode body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
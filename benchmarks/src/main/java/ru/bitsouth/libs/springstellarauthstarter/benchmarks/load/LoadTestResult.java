@@ -0,0 +1,75 @@
+package ru.bitsouth.libs.springstellarauthstarter.benchmarks.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes collected by a {@link LoadTest}, safe to record from many threads.
+ */
+class LoadTestResult {
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    final Histogram challengeLatency = new ConcurrentHistogram(MAX_LATENCY_NANOS, 3);
+    final Histogram tokenLatency = new ConcurrentHistogram(MAX_LATENCY_NANOS, 3);
+    final Histogram loginLatency = new ConcurrentHistogram(MAX_LATENCY_NANOS, 3);
+    final LongAdder logins = new LongAdder();
+    private final ConcurrentMap<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+    private final Map<String, Double> serverFailures = new TreeMap<>();
+    private long elapsedNanos;
+
+    void recordOutcome(String outcome) {
+        outcomes.computeIfAbsent(outcome, x -> new LongAdder()).increment();
+    }
+
+    long getOutcome(String outcome) {
+        LongAdder count = outcomes.get(outcome);
+        return count == null ? 0L : count.sum();
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Failures counted by the server per check, i.e. per {@code throwIf*} reason.
+     */
+    void setServerFailures(Map<String, Double> serverFailures) {
+        this.serverFailures.putAll(serverFailures);
+    }
+
+    double getThroughput() {
+        return logins.sum() / (elapsedNanos / 1e9);
+    }
+
+    void print(PrintStream out) {
+        out.printf("logins: %d in %.1f s, %.1f logins/s%n", logins.sum(), elapsedNanos / 1e9, getThroughput());
+        print(out, "GET /auth", challengeLatency);
+        print(out, "POST /auth", tokenLatency);
+        print(out, "login", loginLatency);
+        out.println("outcomes:");
+        new TreeMap<>(outcomes).forEach((outcome, count) -> out.printf("  %-24s %d%n", outcome, count.sum()));
+        if (!serverFailures.isEmpty()) {
+            out.println("server check failures:");
+            serverFailures.forEach((check, count) -> out.printf("  %-24s %.0f%n", check, count));
+        }
+    }
+
+    private static void print(PrintStream out, String name, Histogram histogram) {
+        out.printf("%s latency, ms: p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f (n=%d)%n", name,
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()), histogram.getTotalCount());
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
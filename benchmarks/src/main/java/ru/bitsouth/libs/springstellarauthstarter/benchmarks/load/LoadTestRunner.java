@@ -0,0 +1,80 @@
+package ru.bitsouth.libs.springstellarauthstarter.benchmarks.load;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Runs a {@link LoadTest} against an embedded server on a random port, or against {@code -Dload.url} when set,
+ * and prints throughput, latency percentiles and outcome counts. For the embedded server the failures the server
+ * counted per check are printed too.
+ * <p>
+ * {@code java -cp benchmarks/target/benchmarks.jar -Dload.logins=100000 -Dload.concurrency=64
+ * ru.bitsouth.libs.springstellarauthstarter.benchmarks.load.LoadTestRunner [--spring.stellar.auth.property=value]}
+ * <p>
+ * Settings: {@code load.wallets} (2000), {@code load.concurrency} (32), {@code load.logins} (20000),
+ * {@code load.badSignatureRate} (0.01), {@code load.replayRate} (0.01) and {@code load.histograms} (false) to print
+ * the full latency distributions. Arguments are passed to the embedded server; rate limits are off by default, as
+ * every simulated wallet shares one address.
+ */
+public class LoadTestRunner {
+
+    public static void main(String[] args) throws InterruptedException {
+        String url = System.getProperty("load.url");
+        ConfigurableApplicationContext context = null;
+        if (url == null) {
+            context = new SpringApplicationBuilder(LoadTestServer.class)
+                    .web(WebApplicationType.SERVLET)
+                    .logStartupInfo(false)
+                    .properties(
+                            "server.port=0",
+                            "spring.stellar.auth.rate-limit.enabled=false",
+                            "spring.stellar.auth.challenge-expire-in=600",
+                            "logging.level.ru.bitsouth.libs=WARN",
+                            "logging.level.org.apache.catalina.core=OFF"
+                    )
+                    .run(args);
+            url = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        }
+
+        try {
+            LoadTest loadTest = new LoadTest(
+                    url,
+                    Integer.getInteger("load.wallets", 2000),
+                    Integer.getInteger("load.concurrency", 32),
+                    Integer.getInteger("load.logins", 20000),
+                    Double.parseDouble(System.getProperty("load.badSignatureRate", "0.01")),
+                    Double.parseDouble(System.getProperty("load.replayRate", "0.01"))
+            );
+            LoadTestResult result = loadTest.run();
+            if (context != null) {
+                result.setServerFailures(getCheckFailures(context.getBean(MeterRegistry.class)));
+            }
+            result.print(System.out);
+            if (Boolean.getBoolean("load.histograms")) {
+                System.out.println("login latency distribution, ms:");
+                result.loginLatency.outputPercentileDistribution(System.out, 1e6);
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    static Map<String, Double> getCheckFailures(MeterRegistry registry) {
+        Map<String, Double> failures = new TreeMap<>();
+        for (Counter counter : registry.find("stellar.auth.check.failures").counters()) {
+            if (counter.count() > 0) {
+                failures.merge(counter.getId().getTag("check"), counter.count(), Double::sum);
+            }
+        }
+        return failures;
+    }
+}
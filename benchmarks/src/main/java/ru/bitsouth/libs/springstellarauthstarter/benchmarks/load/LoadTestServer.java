@@ -0,0 +1,24 @@
+package ru.bitsouth.libs.springstellarauthstarter.benchmarks.load;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * The starter as an application would embed it. Unlike the JMH state it keeps the real replay registry,
+ * so replayed challenges are rejected.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+public class LoadTestServer {
+
+    /**
+     * Collects the server's check failures for the report; without a registry the counters are no-ops.
+     */
+    @Bean
+    public MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+}
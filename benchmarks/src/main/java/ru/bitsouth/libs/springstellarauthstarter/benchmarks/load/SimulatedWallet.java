@@ -0,0 +1,40 @@
+package ru.bitsouth.libs.springstellarauthstarter.benchmarks.load;
+
+import org.stellar.sdk.KeyPair;
+import org.stellar.sdk.Network;
+import org.stellar.sdk.Transaction;
+
+import java.io.IOException;
+
+/**
+ * A wallet holding one key pair that signs the challenges it is given, or signs them wrong on purpose.
+ */
+class SimulatedWallet {
+    private final KeyPair keyPair;
+    private final KeyPair impostor = KeyPair.random();
+
+    SimulatedWallet() {
+        this.keyPair = KeyPair.random();
+    }
+
+    String getAccountId() {
+        return keyPair.getAccountId();
+    }
+
+    String sign(String challenge, Network network) throws IOException {
+        return sign(challenge, network, keyPair);
+    }
+
+    /**
+     * Signs with a key that is not a signer of the account, as a stolen or mistyped challenge would be.
+     */
+    String signWrong(String challenge, Network network) throws IOException {
+        return sign(challenge, network, impostor);
+    }
+
+    private static String sign(String challenge, Network network, KeyPair signer) throws IOException {
+        Transaction transaction = (Transaction) Transaction.fromEnvelopeXdr(challenge, network);
+        transaction.sign(signer);
+        return transaction.toEnvelopeXdrBase64();
+    }
+}
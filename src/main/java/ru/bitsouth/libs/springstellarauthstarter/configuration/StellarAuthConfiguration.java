@@ -1,25 +1,418 @@
 package ru.bitsouth.libs.springstellarauthstarter.configuration;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.util.StringUtils;
-import org.stellar.sdk.Account;
 import org.stellar.sdk.KeyPair;
+import ru.bitsouth.libs.springstellarauthstarter.services.AccountSignerCache;
+import ru.bitsouth.libs.springstellarauthstarter.services.AccountSignerProvider;
+import ru.bitsouth.libs.springstellarauthstarter.services.AsyncJwtEnrichInterface;
+import ru.bitsouth.libs.springstellarauthstarter.services.ChallengeRateLimiter;
+import ru.bitsouth.libs.springstellarauthstarter.services.ConsumedChallengeRegistry;
+import ru.bitsouth.libs.springstellarauthstarter.services.FileAccountSignerProvider;
+import ru.bitsouth.libs.springstellarauthstarter.services.HomeDomain;
+import ru.bitsouth.libs.springstellarauthstarter.services.HomeDomains;
+import ru.bitsouth.libs.springstellarauthstarter.services.InMemoryConsumedChallengeRegistry;
+import ru.bitsouth.libs.springstellarauthstarter.services.InMemoryRateLimiterStore;
+import ru.bitsouth.libs.springstellarauthstarter.services.InMemoryRefreshTokenStore;
+import ru.bitsouth.libs.springstellarauthstarter.services.JwtEnrichInterface;
+import ru.bitsouth.libs.springstellarauthstarter.services.JwtEnrichmentPipeline;
+import ru.bitsouth.libs.springstellarauthstarter.services.JwtTokenCreator;
+import ru.bitsouth.libs.springstellarauthstarter.services.JwtTokenVerifier;
+import ru.bitsouth.libs.springstellarauthstarter.services.MappedFileConsumedChallengeRegistry;
+import ru.bitsouth.libs.springstellarauthstarter.services.NonceSource;
+import ru.bitsouth.libs.springstellarauthstarter.services.RateLimiterStore;
+import ru.bitsouth.libs.springstellarauthstarter.services.RefreshTokenService;
+import ru.bitsouth.libs.springstellarauthstarter.services.RefreshTokenStore;
+import ru.bitsouth.libs.springstellarauthstarter.services.ServerKeyRing;
+import ru.bitsouth.libs.springstellarauthstarter.services.ServerKeyRingFileWatcher;
+import ru.bitsouth.libs.springstellarauthstarter.services.StellarAuthEventLog;
+import ru.bitsouth.libs.springstellarauthstarter.services.StellarAuthExecutor;
+import ru.bitsouth.libs.springstellarauthstarter.services.StellarAuthMetrics;
+import ru.bitsouth.libs.springstellarauthstarter.services.StellarAuthService;
+import ru.bitsouth.libs.springstellarauthstarter.services.StellarTomlService;
+import ru.bitsouth.libs.springstellarauthstarter.services.TokenRevocationFile;
+import ru.bitsouth.libs.springstellarauthstarter.services.TokenRevocationList;
+import ru.bitsouth.libs.springstellarauthstarter.services.TokenRevocationService;
+import ru.bitsouth.libs.springstellarauthstarter.services.VirtualThreads;
+import ru.bitsouth.libs.springstellarauthstarter.services.jwt.EcJwtSigningKey;
+import ru.bitsouth.libs.springstellarauthstarter.services.jwt.EdDsaJwtSigningKey;
+import ru.bitsouth.libs.springstellarauthstarter.services.jwt.HmacJwtSigningKey;
+import ru.bitsouth.libs.springstellarauthstarter.services.jwt.JwtKeySet;
+import ru.bitsouth.libs.springstellarauthstarter.services.jwt.JwtSigningKey;
+import ru.bitsouth.libs.springstellarauthstarter.services.xdr.ChallengeTemplate;
 
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Declares every bean of the starter explicitly instead of scanning for them, and without proxies: bean methods are
+ * plain factory methods and no service is wrapped for method validation, so nothing intercepts the per-request calls.
+ */
+@Slf4j
 @EnableConfigurationProperties(StellarAuthConfigurationProperties.class)
-@Configuration
+@Configuration(proxyBeanMethods = false)
 public class StellarAuthConfiguration {
     @Bean
-    public KeyPair stellarServerKeyPair(StellarAuthConfigurationProperties properties) {
+    @ConditionalOnMissingBean
+    public ServerKeyRing stellarServerKeyRing(StellarAuthConfigurationProperties properties) {
+        StellarAuthConfigurationProperties.KeyRing keyRing = properties.getKeyRing();
+        if (StringUtils.hasText(keyRing.getFile())) {
+            return ServerKeyRingFileWatcher.load(Paths.get(keyRing.getFile()));
+        }
+        List<KeyPair> acceptedKeys = keyRing.getAcceptedKeys().stream()
+                .map(KeyPair::fromAccountId)
+                .collect(Collectors.toList());
         if (StringUtils.hasText(properties.getServerPrivateKey())) {
-            return KeyPair.fromSecretSeed(properties.getServerPrivateKey());
+            return new ServerKeyRing(KeyPair.fromSecretSeed(properties.getServerPrivateKey()), acceptedKeys);
+        }
+        log.warn("Server private key is not configured, a random one is used and challenges will only verify on this node");
+        return new ServerKeyRing(KeyPair.random(), acceptedKeys);
+    }
+
+    @Bean
+    public HomeDomains homeDomains(ServerKeyRing stellarServerKeyRing, StellarAuthConfigurationProperties properties) {
+        List<HomeDomain> domains = new ArrayList<>();
+        domains.add(new HomeDomain(properties.getHomeDomain(), properties.getNetworkPassphrase(), stellarServerKeyRing));
+        for (StellarAuthConfigurationProperties.Domain domain : properties.getDomains()) {
+            List<KeyPair> acceptedKeys = domain.getAcceptedKeys().stream()
+                    .map(KeyPair::fromAccountId)
+                    .collect(Collectors.toList());
+            ServerKeyRing keyRing = new ServerKeyRing(
+                    KeyPair.fromSecretSeed(domain.getServerPrivateKey()), acceptedKeys
+            );
+            String networkPassphrase = StringUtils.hasText(domain.getNetworkPassphrase())
+                    ? domain.getNetworkPassphrase()
+                    : properties.getNetworkPassphrase();
+            domains.add(new HomeDomain(domain.getName(), networkPassphrase, keyRing));
+        }
+        return new HomeDomains(domains);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    @ConditionalOnProperty(prefix = "spring.stellar.auth.key-ring", name = "file")
+    public ServerKeyRingFileWatcher stellarServerKeyRingFileWatcher(
+            ServerKeyRing stellarServerKeyRing, StellarAuthConfigurationProperties properties
+    ) {
+        StellarAuthConfigurationProperties.KeyRing keyRing = properties.getKeyRing();
+        return new ServerKeyRingFileWatcher(
+                stellarServerKeyRing, Paths.get(keyRing.getFile()), keyRing.getReloadInterval()
+        );
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public JwtKeySet jwtKeySet(ServerKeyRing stellarServerKeyRing, StellarAuthConfigurationProperties properties)
+            throws GeneralSecurityException {
+        switch (properties.getJwt().getAlgorithm()) {
+            case ES256:
+                return new JwtKeySet(ecJwtSigningKey(properties.getJwt()), Collections.emptyList());
+            case EdDSA:
+                JwtKeySet jwtKeySet = new JwtKeySet(
+                        eddsaSigningKey(stellarServerKeyRing), eddsaVerificationKeys(stellarServerKeyRing)
+                );
+                stellarServerKeyRing.addListener(ring -> jwtKeySet.reload(
+                        eddsaSigningKey(ring), eddsaVerificationKeys(ring)
+                ));
+                return jwtKeySet;
+            default:
+                return new JwtKeySet(new HmacJwtSigningKey(properties.getJwtTokenSecret()), Collections.emptyList());
+        }
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public StellarAuthMetrics stellarAuthMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new StellarAuthMetrics(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public StellarAuthEventLog stellarAuthEventLog(StellarAuthConfigurationProperties properties) {
+        return new StellarAuthEventLog(properties.getLog().getMode(), properties.getLog().getSampleRate());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public JwtEnrichmentPipeline jwtEnrichmentPipeline(
+            ObjectProvider<AsyncJwtEnrichInterface> enrichers,
+            StellarAuthMetrics stellarAuthMetrics,
+            StellarAuthConfigurationProperties properties
+    ) {
+        StellarAuthConfigurationProperties.Enrichment enrichment = properties.getEnrichment();
+        return new JwtEnrichmentPipeline(
+                enrichers.orderedStream().collect(Collectors.toList()),
+                stellarAuthMetrics,
+                enrichment.getTimeoutMillis(),
+                enrichment.getCacheCapacity()
+        );
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(RateLimiterStore.class)
+    public InMemoryRateLimiterStore rateLimiterStore(StellarAuthConfigurationProperties properties) {
+        return new InMemoryRateLimiterStore(properties.getRateLimit());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ChallengeRateLimiter challengeRateLimiter(
+            StellarAuthConfigurationProperties properties, RateLimiterStore rateLimiterStore
+    ) {
+        return new ChallengeRateLimiter(properties.getRateLimit(), rateLimiterStore);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    @ConditionalOnMissingBean(RefreshTokenStore.class)
+    public InMemoryRefreshTokenStore refreshTokenStore(StellarAuthConfigurationProperties properties) {
+        StellarAuthConfigurationProperties.Refresh refresh = properties.getRefresh();
+        return new InMemoryRefreshTokenStore(refresh.getCapacity(), refresh.getSweepInterval());
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    public TokenRevocationList tokenRevocationList(StellarAuthConfigurationProperties properties) {
+        StellarAuthConfigurationProperties.Revocation revocation = properties.getRevocation();
+        return new TokenRevocationList(
+                revocation.getExpectedEntries(), revocation.getFalsePositiveRate(), revocation.getSweepInterval()
+        );
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    @ConditionalOnProperty(prefix = "spring.stellar.auth.revocation", name = "file")
+    public TokenRevocationFile tokenRevocationFile(
+            TokenRevocationList tokenRevocationList, StellarAuthConfigurationProperties properties
+    ) {
+        StellarAuthConfigurationProperties.Revocation revocation = properties.getRevocation();
+        return new TokenRevocationFile(
+                tokenRevocationList, Paths.get(revocation.getFile()), revocation.getReloadInterval()
+        );
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "spring.stellar.auth.signers", name = "file")
+    public AccountSignerProvider accountSignerProvider(StellarAuthConfigurationProperties properties) {
+        return new FileAccountSignerProvider(Paths.get(properties.getSigners().getFile()));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public AccountSignerCache accountSignerCache(
+            ObjectProvider<AccountSignerProvider> accountSignerProvider, StellarAuthConfigurationProperties properties
+    ) {
+        StellarAuthConfigurationProperties.Signers signers = properties.getSigners();
+        return new AccountSignerCache(
+                accountSignerProvider.getIfAvailable(), signers.getCacheTtl(), signers.getCacheCapacity(),
+                signers.getMissPolicy(), signers.getLookupTimeoutMillis()
+        );
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ConsumedChallengeRegistry consumedChallengeRegistry(StellarAuthConfigurationProperties properties) {
+        StellarAuthConfigurationProperties.Replay replay = properties.getReplay();
+        int capacity = replay.getCapacity() != null
+                ? replay.getCapacity()
+                : InMemoryConsumedChallengeRegistry.capacityFor(
+                        (long) replay.getExpectedRate() * properties.getChallengeExpireIn()
+                );
+        if (StringUtils.hasText(replay.getFile())) {
+            return new MappedFileConsumedChallengeRegistry(Paths.get(replay.getFile()), capacity);
         }
-        return KeyPair.random();
+        return new InMemoryConsumedChallengeRegistry(capacity);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public NonceSource nonceSource(StellarAuthConfigurationProperties properties) {
+        StellarAuthConfigurationProperties.Nonce nonce = properties.getNonce();
+        return new NonceSource(ChallengeTemplate.NONCE_LENGTH, nonce.getBatchSize(), nonce.getStripes());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean(name = "stellarAuthBatchExecutor")
+    public StellarAuthExecutor stellarAuthBatchExecutor(StellarAuthConfigurationProperties properties) {
+        StellarAuthConfigurationProperties.Batch batch = properties.getBatch();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("stellar-auth-batch-");
+        threadFactory.setDaemon(true);
+        return new StellarAuthExecutor(new ThreadPoolExecutor(
+                batch.getParallelism(), batch.getParallelism(),
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(batch.getQueueCapacity()),
+                threadFactory,
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        ));
+    }
+
+    /**
+     * Bounds signing and verification to the cores while requests run on virtual threads; with platform threads
+     * the work stays on the request thread.
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean(name = "stellarAuthCpuExecutor")
+    public StellarAuthExecutor stellarAuthCpuExecutor(StellarAuthConfigurationProperties properties) {
+        StellarAuthConfigurationProperties.Execution execution = properties.getExecution();
+        if (execution.getMode() != StellarAuthConfigurationProperties.ExecutionMode.VIRTUAL) {
+            return StellarAuthExecutor.inline();
+        }
+        if (!VirtualThreads.isAvailable()) {
+            log.warn("virtual threads need JDK 21, requests are handled on platform threads");
+            return StellarAuthExecutor.inline();
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("stellar-auth-cpu-");
+        threadFactory.setDaemon(true);
+        return new StellarAuthExecutor(new ThreadPoolExecutor(
+                execution.getCpuParallelism(), execution.getCpuParallelism(),
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(execution.getCpuQueueCapacity()),
+                threadFactory,
+                new ThreadPoolExecutor.AbortPolicy()
+        ));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public JwtTokenCreator jwtTokenCreator(
+            StellarAuthConfigurationProperties properties,
+            ObjectProvider<JwtEnrichInterface> enrichers,
+            JwtKeySet jwtKeySet,
+            JwtEnrichmentPipeline jwtEnrichmentPipeline,
+            StellarAuthMetrics stellarAuthMetrics,
+            StellarAuthEventLog stellarAuthEventLog
+    ) {
+        return new JwtTokenCreator(
+                properties,
+                enrichers.orderedStream().collect(Collectors.toList()),
+                jwtKeySet,
+                jwtEnrichmentPipeline,
+                stellarAuthMetrics,
+                stellarAuthEventLog
+        );
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public JwtTokenVerifier jwtTokenVerifier(
+            StellarAuthConfigurationProperties properties, JwtKeySet jwtKeySet, TokenRevocationList tokenRevocationList
+    ) {
+        return new JwtTokenVerifier(properties, jwtKeySet, tokenRevocationList);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RefreshTokenService refreshTokenService(
+            StellarAuthConfigurationProperties properties,
+            RefreshTokenStore refreshTokenStore,
+            JwtTokenCreator jwtTokenCreator,
+            TokenRevocationList tokenRevocationList
+    ) {
+        return new RefreshTokenService(properties, refreshTokenStore, jwtTokenCreator, tokenRevocationList);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public TokenRevocationService tokenRevocationService(
+            StellarAuthConfigurationProperties properties,
+            TokenRevocationList tokenRevocationList,
+            RefreshTokenStore refreshTokenStore,
+            ObjectProvider<TokenRevocationFile> tokenRevocationFile
+    ) {
+        return new TokenRevocationService(properties, tokenRevocationList, refreshTokenStore, tokenRevocationFile);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public StellarAuthService stellarAuthService(
+            StellarAuthConfigurationProperties properties,
+            HomeDomains homeDomains,
+            JwtTokenCreator jwtTokenCreator,
+            RefreshTokenService refreshTokenService,
+            ConsumedChallengeRegistry consumedChallengeRegistry,
+            ChallengeRateLimiter challengeRateLimiter,
+            NonceSource nonceSource,
+            AccountSignerCache accountSignerCache,
+            StellarAuthMetrics stellarAuthMetrics,
+            StellarAuthEventLog stellarAuthEventLog,
+            @Qualifier("stellarAuthBatchExecutor") StellarAuthExecutor stellarAuthBatchExecutor,
+            @Qualifier("stellarAuthCpuExecutor") StellarAuthExecutor stellarAuthCpuExecutor
+    ) {
+        return new StellarAuthService(
+                properties,
+                homeDomains,
+                jwtTokenCreator,
+                refreshTokenService,
+                consumedChallengeRegistry,
+                challengeRateLimiter,
+                nonceSource,
+                accountSignerCache,
+                stellarAuthMetrics,
+                stellarAuthEventLog,
+                stellarAuthBatchExecutor,
+                stellarAuthCpuExecutor
+        );
     }
 
     @Bean
-    public Account stellarAccount(KeyPair stellarServerKeyPair, StellarAuthConfigurationProperties properties) {
-        return new Account(stellarServerKeyPair.getAccountId(), properties.getInvalidSequence());
+    @ConditionalOnMissingBean
+    public StellarTomlService stellarTomlService(StellarAuthConfigurationProperties properties, HomeDomains homeDomains) {
+        return new StellarTomlService(properties, homeDomains);
+    }
+
+    static boolean useVirtualThreads(StellarAuthConfigurationProperties properties) {
+        return properties.getExecution().getMode() == StellarAuthConfigurationProperties.ExecutionMode.VIRTUAL
+                && VirtualThreads.isAvailable();
+    }
+
+    private static EdDsaJwtSigningKey eddsaSigningKey(ServerKeyRing serverKeyRing) {
+        return new EdDsaJwtSigningKey(serverKeyRing.getActiveKey());
+    }
+
+    private static List<JwtSigningKey> eddsaVerificationKeys(ServerKeyRing serverKeyRing) {
+        List<KeyPair> keys = serverKeyRing.getVerificationKeys();
+        return keys.subList(1, keys.size()).stream().map(EdDsaJwtSigningKey::new).collect(Collectors.toList());
+    }
+
+    private EcJwtSigningKey ecJwtSigningKey(StellarAuthConfigurationProperties.Jwt jwt) throws GeneralSecurityException {
+        if (!StringUtils.hasText(jwt.getEcPrivateKey()) || !StringUtils.hasText(jwt.getEcPublicKey())) {
+            log.warn("ES256 key pair is not configured, a random one is used and tokens will only verify on this node");
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            java.security.KeyPair keyPair = generator.generateKeyPair();
+            return new EcJwtSigningKey((ECPrivateKey) keyPair.getPrivate(), (ECPublicKey) keyPair.getPublic());
+        }
+        KeyFactory keyFactory = KeyFactory.getInstance("EC");
+        return new EcJwtSigningKey(
+                (ECPrivateKey) keyFactory.generatePrivate(
+                        new PKCS8EncodedKeySpec(Base64.getMimeDecoder().decode(jwt.getEcPrivateKey()))
+                ),
+                (ECPublicKey) keyFactory.generatePublic(
+                        new X509EncodedKeySpec(Base64.getMimeDecoder().decode(jwt.getEcPublicKey()))
+                )
+        );
     }
 }
@@ -1,12 +1,23 @@
 package ru.bitsouth.libs.springstellarauthstarter.configuration;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.lang.Nullable;
 import org.springframework.validation.annotation.Validated;
 
+import javax.validation.Valid;
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 @Data
 @Validated
@@ -22,8 +33,451 @@ public class StellarAuthConfigurationProperties {
     private Integer baseFee = 100;
     @NotBlank
     private String endpoint = "http://localhost:8080/auth";
+    @NotBlank
+    private String networkPassphrase = "Public Global Stellar Network ; September 2015";
+    /**
+     * Default home domain, served with {@link #networkPassphrase} and the server key ring.
+     */
+    @NotBlank
+    private String homeDomain = "Sample";
+    /**
+     * Further home domains, each with its own network and server key. Their keys are read once at startup:
+     * only the default domain follows {@link KeyRing#file}, so rotating the key of a further domain takes a restart.
+     */
+    @NotNull
+    @Valid
+    private List<Domain> domains = new ArrayList<>();
     @NotNull
     private Integer jwtTokenLifetime = 3600;
-    @NotBlank
+    @Nullable
     private String jwtTokenSecret;
+    @NotNull
+    @Valid
+    private Replay replay = new Replay();
+    @NotNull
+    @Valid
+    private Batch batch = new Batch();
+    @NotNull
+    @Valid
+    private Reactive reactive = new Reactive();
+    @NotNull
+    @Valid
+    private Verification verification = new Verification();
+    @NotNull
+    @Valid
+    private Filter filter = new Filter();
+    @NotNull
+    @Valid
+    private Jwt jwt = new Jwt();
+    @NotNull
+    @Valid
+    private KeyRing keyRing = new KeyRing();
+    @NotNull
+    @Valid
+    private Log log = new Log();
+    @NotNull
+    @Valid
+    private Enrichment enrichment = new Enrichment();
+    /**
+     * Challenge rate limits. Their counters live in memory on each node and start full after a restart; unlike
+     * {@link Replay#file} there is no file-backed store. Declare a {@code RateLimiterStore} bean to share them.
+     */
+    @NotNull
+    @Valid
+    private RateLimit rateLimit = new RateLimit();
+    @NotNull
+    @Valid
+    private Refresh refresh = new Refresh();
+    @NotNull
+    @Valid
+    private Revocation revocation = new Revocation();
+    @NotNull
+    @Valid
+    private Signers signers = new Signers();
+    @NotNull
+    @Valid
+    private Toml toml = new Toml();
+    @NotNull
+    @Valid
+    private Execution execution = new Execution();
+    @NotNull
+    @Valid
+    private Nonce nonce = new Nonce();
+
+    @Data
+    public static class Domain {
+        @NotBlank
+        private String name;
+        /**
+         * Falls back to the default network passphrase when empty.
+         */
+        @Nullable
+        private String networkPassphrase;
+        /**
+         * Fixed for the lifetime of the node; unlike the default domain's key it is not reloaded.
+         */
+        @NotBlank
+        private String serverPrivateKey;
+        @NotNull
+        private List<String> acceptedKeys = new ArrayList<>();
+    }
+
+    @Data
+    public static class Replay {
+        /**
+         * Challenges consumed per second at peak; sizes the table for {@code expectedRate * challengeExpireIn}
+         * live challenges unless {@link #capacity} is set.
+         */
+        @NotNull
+        @Positive
+        private Integer expectedRate = 300;
+        /**
+         * Table slots; a login fails with 503 "Too many outstanding challenges." once the bucket its challenge
+         * hashes to holds 8 live ones, so keep it well above the live challenges.
+         */
+        @Nullable
+        @Positive
+        private Integer capacity;
+        /**
+         * Memory-mapped file keeping consumed challenges across restarts; kept in memory only when empty.
+         */
+        @Nullable
+        private String file;
+    }
+
+    @Data
+    public static class Batch {
+        @NotNull
+        @Positive
+        private Integer maxSize = 100;
+        @NotNull
+        @Positive
+        private Integer parallelism = Runtime.getRuntime().availableProcessors();
+        @NotNull
+        @Positive
+        private Integer queueCapacity = 1000;
+    }
+
+    @Data
+    public static class Reactive {
+        @NotNull
+        @Positive
+        private Integer parallelism = Runtime.getRuntime().availableProcessors();
+    }
+
+    @Data
+    public static class Verification {
+        @NotNull
+        @Positive
+        private Integer cacheCapacity = 100000;
+    }
+
+    @Data
+    public static class Filter {
+        /**
+         * Off by default, as the filter sees every request of the application; enable it when the application
+         * accepts the tokens of this starter.
+         */
+        @NotNull
+        private Boolean enabled = false;
+        @NotNull
+        private Boolean required = false;
+        @NotEmpty
+        private List<String> urlPatterns = new ArrayList<>(Collections.singletonList("/*"));
+        @NotNull
+        private Integer order = 0;
+    }
+
+    @Data
+    public static class Jwt {
+        /**
+         * {@link JwtAlgorithm#EdDSA} signs with the active server key and follows reloads of the key ring file.
+         */
+        @NotNull
+        private JwtAlgorithm algorithm = JwtAlgorithm.HS512;
+        /**
+         * Base64 PKCS#8 P-256 private key for ES256; a key pair is generated when empty.
+         */
+        @Nullable
+        private String ecPrivateKey;
+        /**
+         * Base64 X.509 public key matching {@link #ecPrivateKey}.
+         */
+        @Nullable
+        private String ecPublicKey;
+        @NotNull
+        @PositiveOrZero
+        private Integer jwksMaxAge = 300;
+    }
+
+    @Data
+    public static class KeyRing {
+        /**
+         * Account ids of previous or sibling server keys whose challenges are still accepted.
+         */
+        @NotNull
+        private List<String> acceptedKeys = new ArrayList<>();
+        /**
+         * Key file watched for rotation; when set it replaces {@code serverPrivateKey} and {@link #acceptedKeys}.
+         */
+        @Nullable
+        private String file;
+        @NotNull
+        @Positive
+        private Long reloadInterval = 30L;
+    }
+
+    @Data
+    public static class Log {
+        @NotNull
+        private LogMode mode = LogMode.PLAIN;
+        /**
+         * Share of events logged in {@link LogMode#SAMPLED} mode.
+         */
+        @NotNull
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        private Double sampleRate = 0.01;
+    }
+
+    @Data
+    public static class Enrichment {
+        @NotNull
+        @Positive
+        private Long timeoutMillis = 1000L;
+        /**
+         * Public keys whose claims are cached, per enricher.
+         */
+        @NotNull
+        @Positive
+        private Integer cacheCapacity = 10000;
+    }
+
+    @Data
+    public static class RateLimit {
+        @NotNull
+        private Boolean enabled = true;
+        @NotNull
+        @Valid
+        private Limit account = new Limit(1.0, 10);
+        /**
+         * Limit per client address; behind a proxy set {@code server.forward-headers-strategy} so the address
+         * is the client's one.
+         */
+        @NotNull
+        @Valid
+        private Limit address = new Limit(50.0, 100);
+        /**
+         * Buckets kept per limit before keys start sharing one overflow bucket.
+         */
+        @NotNull
+        @Positive
+        private Integer maxKeys = 100000;
+
+        @Data
+        @NoArgsConstructor
+        @AllArgsConstructor
+        public static class Limit {
+            @NotNull
+            @Positive
+            private Double permitsPerSecond;
+            @NotNull
+            @Positive
+            private Integer burst;
+        }
+    }
+
+    @Data
+    public static class Refresh {
+        @NotNull
+        private Boolean enabled = true;
+        /**
+         * Seconds a refresh session lives after the SEP-10 login; refreshing does not extend it.
+         */
+        @NotNull
+        @Positive
+        private Long lifetime = 2592000L;
+        /**
+         * Sessions kept; once full, logins get no refresh token until expired sessions are swept.
+         */
+        @NotNull
+        @Positive
+        private Integer capacity = 1000000;
+        @NotNull
+        @Positive
+        private Long sweepInterval = 60L;
+    }
+
+    @Data
+    public static class Revocation {
+        /**
+         * Revocations the filter is sized for before its false positive rate degrades.
+         */
+        @NotNull
+        @Positive
+        private Integer expectedEntries = 100000;
+        @NotNull
+        @DecimalMin(value = "0.0", inclusive = false)
+        @DecimalMax(value = "1.0", inclusive = false)
+        private Double falsePositiveRate = 0.01;
+        /**
+         * Append-only revocation log shared by the nodes; revocations stay local when empty.
+         */
+        @Nullable
+        private String file;
+        @NotNull
+        @Positive
+        private Long reloadInterval = 5L;
+        /**
+         * Seconds between sweeps of expired revocations.
+         */
+        @NotNull
+        @Positive
+        private Long sweepInterval = 60L;
+    }
+
+    @Data
+    public static class Signers {
+        /**
+         * Signer sets file read by {@code FileAccountSignerProvider}; declare an {@code AccountSignerProvider} bean
+         * to look signers up elsewhere.
+         */
+        @Nullable
+        private String file;
+        @NotNull
+        @Positive
+        private Long cacheTtl = 60L;
+        @NotNull
+        @Positive
+        private Integer cacheCapacity = 100000;
+        /**
+         * {@link SignerMissPolicy#MASTER_KEY} never blocks, but until the lookup completes it accepts the master
+         * key of an account that has removed or down-weighted it.
+         */
+        @NotNull
+        private SignerMissPolicy missPolicy = SignerMissPolicy.WAIT;
+        @NotNull
+        @Positive
+        private Long lookupTimeoutMillis = 1000L;
+    }
+
+    @Data
+    public static class Execution {
+        /**
+         * {@link ExecutionMode#VIRTUAL} handles requests on virtual threads and moves challenge signing and
+         * verification to a pool of {@link #cpuParallelism} threads; it needs JDK 21 and falls back to
+         * {@link ExecutionMode#PLATFORM} on older runtimes.
+         */
+        @NotNull
+        private ExecutionMode mode = ExecutionMode.PLATFORM;
+        @NotNull
+        @Positive
+        private Integer cpuParallelism = Runtime.getRuntime().availableProcessors();
+        /**
+         * Signing and verification tasks waiting for a thread before requests are rejected with 503.
+         */
+        @NotNull
+        @Positive
+        private Integer cpuQueueCapacity = 1000;
+    }
+
+    @Data
+    public static class Nonce {
+        /**
+         * Nonces read from the secure random generator at once.
+         */
+        @NotNull
+        @Positive
+        private Integer batchSize = 128;
+        @NotNull
+        @Positive
+        private Integer stripes = Runtime.getRuntime().availableProcessors() * 2;
+    }
+
+    /**
+     * SEP-1 fields of stellar.toml besides the signing key, auth endpoint and network passphrase; empty ones are
+     * left out.
+     */
+    @Data
+    public static class Toml {
+        @Nullable
+        private String federationServer;
+        @Nullable
+        private String transferServer;
+        @Nullable
+        private String transferServerSep0024;
+        @Nullable
+        private String kycServer;
+        @Nullable
+        private String horizonUrl;
+        @Nullable
+        private String uriRequestSigningKey;
+        @NotNull
+        private List<String> accounts = new ArrayList<>();
+        @NotNull
+        @Valid
+        private Documentation documentation = new Documentation();
+        @NotNull
+        @Valid
+        private List<Currency> currencies = new ArrayList<>();
+        @NotNull
+        @PositiveOrZero
+        private Integer maxAge = 300;
+
+        @Data
+        public static class Documentation {
+            @Nullable
+            private String orgName;
+            @Nullable
+            private String orgUrl;
+            @Nullable
+            private String orgLogo;
+            @Nullable
+            private String orgDescription;
+            @Nullable
+            private String orgOfficialEmail;
+            @Nullable
+            private String orgSupportEmail;
+        }
+
+        @Data
+        public static class Currency {
+            @NotBlank
+            private String code;
+            @Nullable
+            private String issuer;
+            @Nullable
+            private String status;
+            @Nullable
+            private Integer displayDecimals;
+            @Nullable
+            private String name;
+            @Nullable
+            private String desc;
+            @Nullable
+            private String image;
+            @Nullable
+            private Boolean isAssetAnchored;
+            @Nullable
+            private String anchorAssetType;
+            @Nullable
+            private String anchorAsset;
+        }
+    }
+
+    public enum JwtAlgorithm {
+        HS512, ES256, EdDSA
+    }
+
+    public enum LogMode {
+        PLAIN, SAMPLED, STRUCTURED
+    }
+
+    public enum ExecutionMode {
+        PLATFORM, VIRTUAL
+    }
+
+    public enum SignerMissPolicy {
+        MASTER_KEY, WAIT
+    }
 }
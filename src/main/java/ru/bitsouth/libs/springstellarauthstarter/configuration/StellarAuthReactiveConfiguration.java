@@ -0,0 +1,74 @@
+package ru.bitsouth.libs.springstellarauthstarter.configuration;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.reactive.JwksHandler;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.reactive.StellarAuthHandler;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.reactive.StellarTomlHandler;
+import ru.bitsouth.libs.springstellarauthstarter.services.RefreshTokenService;
+import ru.bitsouth.libs.springstellarauthstarter.services.StellarAuthService;
+import ru.bitsouth.libs.springstellarauthstarter.services.StellarTomlService;
+import ru.bitsouth.libs.springstellarauthstarter.services.VirtualThreads;
+import ru.bitsouth.libs.springstellarauthstarter.services.jwt.JwtKeySet;
+
+import javax.validation.Validator;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class StellarAuthReactiveConfiguration {
+
+    @Bean(destroyMethod = "dispose")
+    @ConditionalOnMissingBean(name = "stellarAuthScheduler")
+    public Scheduler stellarAuthScheduler(StellarAuthConfigurationProperties properties) {
+        if (StellarAuthConfiguration.useVirtualThreads(properties)) {
+            return Schedulers.fromExecutorService(VirtualThreads.newExecutor(), "stellar-auth");
+        }
+        return Schedulers.newParallel("stellar-auth", properties.getReactive().getParallelism(), true);
+    }
+
+    @Bean
+    public StellarAuthHandler stellarAuthHandler(
+            StellarAuthService stellarAuthService,
+            RefreshTokenService refreshTokenService,
+            Validator validator,
+            Scheduler stellarAuthScheduler
+    ) {
+        return new StellarAuthHandler(stellarAuthService, refreshTokenService, validator, stellarAuthScheduler);
+    }
+
+    @Bean
+    public StellarTomlHandler stellarTomlHandler(
+            StellarTomlService stellarTomlService, StellarAuthConfigurationProperties properties
+    ) {
+        return new StellarTomlHandler(stellarTomlService, properties);
+    }
+
+    @Bean
+    public JwksHandler jwksHandler(JwtKeySet jwtKeySet, StellarAuthConfigurationProperties properties) {
+        return new JwksHandler(jwtKeySet, properties);
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> stellarAuthRoutes(
+            StellarAuthHandler stellarAuthHandler, StellarTomlHandler stellarTomlHandler, JwksHandler jwksHandler
+    ) {
+        return route(GET("/auth"), stellarAuthHandler::getChallenge)
+                .andRoute(POST("/auth"), stellarAuthHandler::getJwtToken)
+                .andRoute(POST("/auth/batch/challenges"), stellarAuthHandler::getChallenges)
+                .andRoute(POST("/auth/batch/tokens"), stellarAuthHandler::getJwtTokens)
+                .andRoute(POST("/auth/refresh"), stellarAuthHandler::refresh)
+                .andRoute(POST("/auth/refresh/revoke"), stellarAuthHandler::revoke)
+                .andRoute(GET("/.well-known/Stellar.toml"), stellarTomlHandler::getToml)
+                .andRoute(GET("/.well-known/jwks.json"), jwksHandler::getJwks);
+    }
+}
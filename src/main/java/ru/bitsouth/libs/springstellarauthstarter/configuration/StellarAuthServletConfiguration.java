@@ -0,0 +1,96 @@
+package ru.bitsouth.libs.springstellarauthstarter.configuration;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.JwksController;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.JwtAuthenticationFilter;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.StellarAuthController;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.StellarTomlController;
+import ru.bitsouth.libs.springstellarauthstarter.services.JwtTokenVerifier;
+import ru.bitsouth.libs.springstellarauthstarter.services.RefreshTokenService;
+import ru.bitsouth.libs.springstellarauthstarter.services.StellarAuthExecutor;
+import ru.bitsouth.libs.springstellarauthstarter.services.StellarAuthService;
+import ru.bitsouth.libs.springstellarauthstarter.services.StellarTomlService;
+import ru.bitsouth.libs.springstellarauthstarter.services.VirtualThreads;
+import ru.bitsouth.libs.springstellarauthstarter.services.jwt.JwtKeySet;
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class StellarAuthServletConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public StellarAuthController stellarAuthController(
+            StellarAuthService stellarAuthService, RefreshTokenService refreshTokenService
+    ) {
+        return new StellarAuthController(stellarAuthService, refreshTokenService);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public StellarTomlController stellarTomlController(
+            StellarTomlService stellarTomlService, StellarAuthConfigurationProperties properties
+    ) {
+        return new StellarTomlController(stellarTomlService, properties);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public JwksController jwksController(JwtKeySet jwtKeySet, StellarAuthConfigurationProperties properties) {
+        return new JwksController(jwtKeySet, properties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "spring.stellar.auth.filter", name = "enabled", havingValue = "true")
+    public FilterRegistrationBean<JwtAuthenticationFilter> stellarJwtAuthenticationFilter(
+            JwtTokenVerifier jwtTokenVerifier, StellarAuthConfigurationProperties properties
+    ) {
+        StellarAuthConfigurationProperties.Filter filter = properties.getFilter();
+        FilterRegistrationBean<JwtAuthenticationFilter> registration =
+                new FilterRegistrationBean<>(new JwtAuthenticationFilter(jwtTokenVerifier, filter.getRequired()));
+        registration.setUrlPatterns(filter.getUrlPatterns());
+        registration.setOrder(filter.getOrder());
+        return registration;
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "org.apache.catalina.startup.Tomcat")
+    @ConditionalOnProperty(prefix = "spring.stellar.auth.execution", name = "mode", havingValue = "virtual")
+    static class VirtualThreadsConfiguration {
+
+        /**
+         * Virtual thread per request; a bean of its own, so the executor is shut down with the context.
+         */
+        @Bean(destroyMethod = "shutdown")
+        @ConditionalOnMissingBean(name = "stellarAuthRequestExecutor")
+        public StellarAuthExecutor stellarAuthRequestExecutor(StellarAuthConfigurationProperties properties) {
+            if (!StellarAuthConfiguration.useVirtualThreads(properties)) {
+                return StellarAuthExecutor.inline();
+            }
+            return new StellarAuthExecutor(VirtualThreads.newExecutor());
+        }
+
+        /**
+         * Hands Tomcat's request processing to virtual threads, so requests waiting on enrichers or signer lookups
+         * hold no platform thread.
+         */
+        @Bean
+        public TomcatProtocolHandlerCustomizer<ProtocolHandler> stellarAuthVirtualThreadsCustomizer(
+                StellarAuthConfigurationProperties properties,
+                @Qualifier("stellarAuthRequestExecutor") StellarAuthExecutor stellarAuthRequestExecutor
+        ) {
+            if (!StellarAuthConfiguration.useVirtualThreads(properties)) {
+                return protocolHandler -> { };
+            }
+            return protocolHandler -> protocolHandler.setExecutor(stellarAuthRequestExecutor::execute);
+        }
+    }
+}
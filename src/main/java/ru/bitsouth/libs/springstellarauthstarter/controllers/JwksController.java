@@ -0,0 +1,26 @@
+package ru.bitsouth.libs.springstellarauthstarter.controllers;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import ru.bitsouth.libs.springstellarauthstarter.configuration.StellarAuthConfigurationProperties;
+import ru.bitsouth.libs.springstellarauthstarter.services.jwt.JwtKeySet;
+
+import java.util.concurrent.TimeUnit;
+
+@RequestMapping
+@RequiredArgsConstructor
+public class JwksController {
+    private final JwtKeySet jwtKeySet;
+    private final StellarAuthConfigurationProperties properties;
+
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> getJwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(properties.getJwt().getJwksMaxAge(), TimeUnit.SECONDS).cachePublic())
+                .body(jwtKeySet.getJwks());
+    }
+}
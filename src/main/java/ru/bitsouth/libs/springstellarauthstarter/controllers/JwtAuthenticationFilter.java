@@ -0,0 +1,103 @@
+package ru.bitsouth.libs.springstellarauthstarter.controllers;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.bitsouth.libs.springstellarauthstarter.services.JwtTokenVerifier;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.security.Principal;
+
+/**
+ * Authenticates requests bearing a token issued by this starter.
+ * <p>
+ * A valid {@code Authorization: Bearer} token exposes its claims as the {@link #CLAIMS_ATTRIBUTE} request attribute
+ * and its subject (the Stellar account) as the user principal. An invalid token is answered with 401; a missing one
+ * only when {@code required} is set. Unless {@code required} is set, a token that is not a JWT of a known key is
+ * left to the application, which may accept other bearer tokens. The starter's own endpoints are never filtered.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+    public static final String CLAIMS_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".CLAIMS";
+    private static final String BEARER = "Bearer ";
+
+    private final JwtTokenVerifier verifier;
+    private final boolean required;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.equals("/auth") || path.startsWith("/auth/") || path.startsWith("/.well-known/");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request, HttpServletResponse response, FilterChain filterChain
+    ) throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            if (required) {
+                unauthorized(response, null);
+                return;
+            }
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Claims claims;
+        try {
+            claims = verifier.verify(header.substring(BEARER.length()).trim());
+        } catch (UnsupportedJwtException | MalformedJwtException e) {
+            if (required) {
+                log.debug("jwt token was rejected: {}", e.getMessage());
+                unauthorized(response, "invalid_token");
+                return;
+            }
+            filterChain.doFilter(request, response);
+            return;
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("jwt token was rejected: {}", e.getMessage());
+            unauthorized(response, "invalid_token");
+            return;
+        }
+
+        request.setAttribute(CLAIMS_ATTRIBUTE, claims);
+        filterChain.doFilter(new AuthenticatedRequest(request, claims), response);
+    }
+
+    private static void unauthorized(HttpServletResponse response, String error) {
+        response.setHeader(HttpHeaders.WWW_AUTHENTICATE, error == null ? "Bearer" : "Bearer error=\"" + error + "\"");
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+    }
+
+    private static class AuthenticatedRequest extends HttpServletRequestWrapper {
+        private final Principal principal;
+
+        AuthenticatedRequest(HttpServletRequest request, Claims claims) {
+            super(request);
+            String subject = claims.getSubject();
+            this.principal = () -> subject;
+        }
+
+        @Override
+        public Principal getUserPrincipal() {
+            return principal;
+        }
+
+        @Override
+        public String getRemoteUser() {
+            return principal.getName();
+        }
+    }
+}
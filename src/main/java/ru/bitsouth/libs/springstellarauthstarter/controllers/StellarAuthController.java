@@ -1,40 +1,117 @@
 package ru.bitsouth.libs.springstellarauthstarter.controllers;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.validation.annotation.Validated;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.models.BatchChallengeRequest;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.models.BatchChallengeResponse;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.models.BatchJwtTokenRequest;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.models.BatchJwtTokenResponse;
 import ru.bitsouth.libs.springstellarauthstarter.controllers.models.ChallengeResponse;
 import ru.bitsouth.libs.springstellarauthstarter.controllers.models.JwtTokenRequest;
 import ru.bitsouth.libs.springstellarauthstarter.controllers.models.JwtTokenResponse;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.models.RefreshTokenRequest;
+import ru.bitsouth.libs.springstellarauthstarter.services.BatchResult;
+import ru.bitsouth.libs.springstellarauthstarter.services.IssuedTokens;
+import ru.bitsouth.libs.springstellarauthstarter.services.RefreshTokenService;
 import ru.bitsouth.libs.springstellarauthstarter.services.StellarAuthService;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
-import javax.validation.constraints.NotBlank;
-import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.List;
 
-@RestController
 @RequestMapping("/auth")
-@Validated
+@ResponseBody
 @RequiredArgsConstructor
 public class StellarAuthController {
     private final StellarAuthService service;
+    private final RefreshTokenService refreshTokenService;
 
     @GetMapping
-    public @NotNull @Valid ChallengeResponse getChallenge(
-            @RequestParam("account") @NotBlank String publicKey,
-            @RequestParam(value = "home_domain", required = false, defaultValue = "Sample auth") String homeDomain
+    public ChallengeResponse getChallenge(
+            @RequestParam("account") String publicKey,
+            @RequestParam(value = "home_domain", required = false) String homeDomain,
+            HttpServletRequest request
     ) {
+        if (!StringUtils.hasText(publicKey)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "account is required");
+        }
         return ChallengeResponse.builder()
-                .transaction(service.getChallenge(publicKey, homeDomain))
+                .transaction(service.getChallenge(publicKey, homeDomain, request.getRemoteAddr()))
+                .networkPassphrase(service.getNetworkPassphrase(homeDomain))
                 .build();
     }
 
     @PostMapping
-    public @NotNull @Valid JwtTokenResponse getJwtToken(
-            @RequestBody @NotNull @Valid JwtTokenRequest jwtTokenRequest
+    public JwtTokenResponse getJwtToken(
+            @RequestBody @Valid JwtTokenRequest jwtTokenRequest
     ) {
+        IssuedTokens tokens = service.getTokens(jwtTokenRequest.getTransaction());
         return JwtTokenResponse.builder()
-                .token(service.getJwtToken(jwtTokenRequest.getTransaction()))
+                .token(tokens.getToken())
+                .refreshToken(tokens.getRefreshToken())
+                .build();
+    }
+
+    @PostMapping("/refresh")
+    public JwtTokenResponse refresh(
+            @RequestBody @Valid RefreshTokenRequest refreshTokenRequest
+    ) {
+        IssuedTokens tokens = refreshTokenService.refresh(refreshTokenRequest.getRefreshToken());
+        return JwtTokenResponse.builder()
+                .token(tokens.getToken())
+                .refreshToken(tokens.getRefreshToken())
+                .build();
+    }
+
+    @PostMapping("/refresh/revoke")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void revoke(@RequestBody @Valid RefreshTokenRequest refreshTokenRequest) {
+        refreshTokenService.revoke(refreshTokenRequest.getRefreshToken());
+    }
+
+    @PostMapping("/batch/challenges")
+    public BatchChallengeResponse getChallenges(
+            @RequestBody @Valid BatchChallengeRequest batchChallengeRequest,
+            HttpServletRequest request
+    ) {
+        List<String> accounts = batchChallengeRequest.getAccounts();
+        List<BatchResult<String>> challenges = service.getChallenges(
+                accounts, batchChallengeRequest.getHomeDomain(), request.getRemoteAddr()
+        );
+
+        List<BatchChallengeResponse.Item> items = new ArrayList<>(challenges.size());
+        for (int i = 0; i < challenges.size(); i++) {
+            items.add(BatchChallengeResponse.Item.builder()
+                    .account(accounts.get(i))
+                    .transaction(challenges.get(i).getValue())
+                    .error(challenges.get(i).getError())
+                    .build());
+        }
+        return BatchChallengeResponse.builder()
+                .items(items)
+                .networkPassphrase(service.getNetworkPassphrase(batchChallengeRequest.getHomeDomain()))
+                .build();
+    }
+
+    @PostMapping("/batch/tokens")
+    public BatchJwtTokenResponse getJwtTokens(
+            @RequestBody @Valid BatchJwtTokenRequest batchJwtTokenRequest
+    ) {
+        List<BatchResult<String>> tokens = service.getJwtTokens(batchJwtTokenRequest.getTransactions());
+
+        List<BatchJwtTokenResponse.Item> items = new ArrayList<>(tokens.size());
+        for (BatchResult<String> token : tokens) {
+            items.add(BatchJwtTokenResponse.Item.builder()
+                    .token(token.getValue())
+                    .error(token.getError())
+                    .build());
+        }
+        return BatchJwtTokenResponse.builder()
+                .items(items)
                 .build();
     }
 }
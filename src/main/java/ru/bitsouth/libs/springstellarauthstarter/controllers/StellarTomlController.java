@@ -1,24 +1,50 @@
 package ru.bitsouth.libs.springstellarauthstarter.controllers;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.stereotype.Controller;
-import org.springframework.validation.annotation.Validated;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.ResponseBody;
+import ru.bitsouth.libs.springstellarauthstarter.configuration.StellarAuthConfigurationProperties;
+import ru.bitsouth.libs.springstellarauthstarter.services.StellarToml;
 import ru.bitsouth.libs.springstellarauthstarter.services.StellarTomlService;
 
+import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.TimeUnit;
+
 
-@Controller
 @RequestMapping
-@Validated
 @RequiredArgsConstructor
 public class StellarTomlController {
+    private static final MediaType TEXT_PLAIN_UTF8 = MediaType.parseMediaType("text/plain;charset=UTF-8");
+
     private final StellarTomlService service;
+    private final StellarAuthConfigurationProperties properties;
 
     @GetMapping("/.well-known/Stellar.toml")
-    @ResponseBody
-    public String getToml() {
-        return service.getToml();
+    public ResponseEntity<byte[]> getToml(@RequestHeader HttpHeaders requestHeaders, HttpServletRequest request) {
+        StellarToml toml = service.getDocument(request.getServerName());
+        boolean gzip = toml.acceptsGzip(requestHeaders);
+        boolean notModified = toml.isNotModified(requestHeaders);
+        HttpStatus status = notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK;
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status)
+                .eTag(gzip ? toml.getGzipEtag() : toml.getEtag())
+                .lastModified(toml.getLastModified())
+                .cacheControl(CacheControl.maxAge(properties.getToml().getMaxAge(), TimeUnit.SECONDS).cachePublic())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .header(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+        if (notModified) {
+            return response.build();
+        }
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response
+                .contentType(TEXT_PLAIN_UTF8)
+                .body(gzip ? toml.getGzipBody() : toml.getBody());
     }
 }
@@ -0,0 +1,25 @@
+package ru.bitsouth.libs.springstellarauthstarter.controllers.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.lang.Nullable;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchChallengeRequest {
+    @NotEmpty
+    List<@NotBlank String> accounts;
+    /**
+     * Default home domain when {@code null}.
+     */
+    @Nullable
+    String homeDomain;
+}
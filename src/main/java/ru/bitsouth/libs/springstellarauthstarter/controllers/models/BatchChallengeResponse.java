@@ -0,0 +1,35 @@
+package ru.bitsouth.libs.springstellarauthstarter.controllers.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.lang.Nullable;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchChallengeResponse {
+    @NotNull
+    List<Item> items;
+    @Nullable
+    String networkPassphrase;
+
+    @Getter
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        @NotBlank
+        String account;
+        @Nullable
+        String transaction;
+        @Nullable
+        String error;
+    }
+}
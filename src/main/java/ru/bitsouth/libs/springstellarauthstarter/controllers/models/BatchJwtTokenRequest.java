@@ -0,0 +1,19 @@
+package ru.bitsouth.libs.springstellarauthstarter.controllers.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchJwtTokenRequest {
+    @NotEmpty
+    List<@NotBlank String> transactions;
+}
@@ -0,0 +1,30 @@
+package ru.bitsouth.libs.springstellarauthstarter.controllers.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.lang.Nullable;
+
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchJwtTokenResponse {
+    @NotNull
+    List<Item> items;
+
+    @Getter
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        @Nullable
+        String token;
+        @Nullable
+        String error;
+    }
+}
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.springframework.lang.Nullable;
 
 import javax.validation.constraints.NotBlank;
 
@@ -14,4 +15,6 @@ import javax.validation.constraints.NotBlank;
 public class JwtTokenResponse {
     @NotBlank
     String token;
+    @Nullable
+    String refreshToken;
 }
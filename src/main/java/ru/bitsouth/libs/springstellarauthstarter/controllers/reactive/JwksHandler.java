@@ -0,0 +1,25 @@
+package ru.bitsouth.libs.springstellarauthstarter.controllers.reactive;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import ru.bitsouth.libs.springstellarauthstarter.configuration.StellarAuthConfigurationProperties;
+import ru.bitsouth.libs.springstellarauthstarter.services.jwt.JwtKeySet;
+
+import java.util.concurrent.TimeUnit;
+
+@RequiredArgsConstructor
+public class JwksHandler {
+    private final JwtKeySet jwtKeySet;
+    private final StellarAuthConfigurationProperties properties;
+
+    public Mono<ServerResponse> getJwks(ServerRequest request) {
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.maxAge(properties.getJwt().getJwksMaxAge(), TimeUnit.SECONDS).cachePublic())
+                .bodyValue(jwtKeySet.getJwks());
+    }
+}
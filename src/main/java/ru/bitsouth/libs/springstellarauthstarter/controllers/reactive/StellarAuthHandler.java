@@ -0,0 +1,160 @@
+package ru.bitsouth.libs.springstellarauthstarter.controllers.reactive;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.models.BatchChallengeRequest;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.models.BatchChallengeResponse;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.models.BatchJwtTokenRequest;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.models.BatchJwtTokenResponse;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.models.ChallengeResponse;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.models.JwtTokenRequest;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.models.JwtTokenResponse;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.models.RefreshTokenRequest;
+import ru.bitsouth.libs.springstellarauthstarter.services.BatchResult;
+import ru.bitsouth.libs.springstellarauthstarter.services.IssuedTokens;
+import ru.bitsouth.libs.springstellarauthstarter.services.RefreshTokenService;
+import ru.bitsouth.libs.springstellarauthstarter.services.StellarAuthService;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * Reactive counterpart of {@link ru.bitsouth.libs.springstellarauthstarter.controllers.StellarAuthController}.
+ * Signing and verification are CPU bound, so they run on the bounded {@code stellarAuthScheduler}
+ * instead of the event loop.
+ */
+@RequiredArgsConstructor
+public class StellarAuthHandler {
+    private final StellarAuthService service;
+    private final RefreshTokenService refreshTokenService;
+    private final Validator validator;
+    private final Scheduler stellarAuthScheduler;
+
+    public Mono<ServerResponse> getChallenge(ServerRequest request) {
+        String publicKey = request.queryParam("account")
+                .filter(x -> !x.trim().isEmpty())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "account is required"));
+        String homeDomain = request.queryParam("home_domain").orElse(null);
+        String clientAddress = getClientAddress(request);
+
+        return ok(offload(() -> ChallengeResponse.builder()
+                .transaction(service.getChallenge(publicKey, homeDomain, clientAddress))
+                .networkPassphrase(service.getNetworkPassphrase(homeDomain))
+                .build()));
+    }
+
+    public Mono<ServerResponse> getJwtToken(ServerRequest request) {
+        return ok(request.bodyToMono(JwtTokenRequest.class)
+                .map(this::validate)
+                .flatMap(jwtTokenRequest -> offload(
+                        () -> toResponse(service.getTokens(jwtTokenRequest.getTransaction()))
+                )));
+    }
+
+    public Mono<ServerResponse> refresh(ServerRequest request) {
+        return ok(request.bodyToMono(RefreshTokenRequest.class)
+                .map(this::validate)
+                .flatMap(refreshTokenRequest -> offload(
+                        () -> toResponse(refreshTokenService.refresh(refreshTokenRequest.getRefreshToken()))
+                )));
+    }
+
+    public Mono<ServerResponse> revoke(ServerRequest request) {
+        return request.bodyToMono(RefreshTokenRequest.class)
+                .map(this::validate)
+                .flatMap(refreshTokenRequest -> offload(() -> {
+                    refreshTokenService.revoke(refreshTokenRequest.getRefreshToken());
+                    return refreshTokenRequest;
+                }))
+                .flatMap(x -> ServerResponse.noContent().build())
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "body is required")));
+    }
+
+    public Mono<ServerResponse> getChallenges(ServerRequest request) {
+        String clientAddress = getClientAddress(request);
+        return ok(request.bodyToMono(BatchChallengeRequest.class)
+                .map(this::validate)
+                .flatMap(batchChallengeRequest -> offload(() -> {
+                    List<String> accounts = batchChallengeRequest.getAccounts();
+                    List<BatchResult<String>> challenges = service.getChallenges(
+                            accounts, batchChallengeRequest.getHomeDomain(), clientAddress
+                    );
+
+                    List<BatchChallengeResponse.Item> items = new ArrayList<>(challenges.size());
+                    for (int i = 0; i < challenges.size(); i++) {
+                        items.add(BatchChallengeResponse.Item.builder()
+                                .account(accounts.get(i))
+                                .transaction(challenges.get(i).getValue())
+                                .error(challenges.get(i).getError())
+                                .build());
+                    }
+                    return BatchChallengeResponse.builder()
+                            .items(items)
+                            .networkPassphrase(service.getNetworkPassphrase(batchChallengeRequest.getHomeDomain()))
+                            .build();
+                })));
+    }
+
+    public Mono<ServerResponse> getJwtTokens(ServerRequest request) {
+        return ok(request.bodyToMono(BatchJwtTokenRequest.class)
+                .map(this::validate)
+                .flatMap(batchJwtTokenRequest -> offload(() -> {
+                    List<BatchResult<String>> tokens = service.getJwtTokens(batchJwtTokenRequest.getTransactions());
+
+                    List<BatchJwtTokenResponse.Item> items = new ArrayList<>(tokens.size());
+                    for (BatchResult<String> token : tokens) {
+                        items.add(BatchJwtTokenResponse.Item.builder()
+                                .token(token.getValue())
+                                .error(token.getError())
+                                .build());
+                    }
+                    return BatchJwtTokenResponse.builder()
+                            .items(items)
+                            .build();
+                })));
+    }
+
+    private static JwtTokenResponse toResponse(IssuedTokens tokens) {
+        return JwtTokenResponse.builder()
+                .token(tokens.getToken())
+                .refreshToken(tokens.getRefreshToken())
+                .build();
+    }
+
+    @Nullable
+    private static String getClientAddress(ServerRequest request) {
+        return request.remoteAddress()
+                .map(x -> x.getAddress() != null ? x.getAddress().getHostAddress() : x.getHostString())
+                .orElse(null);
+    }
+
+    private <T> Mono<T> offload(Callable<T> callable) {
+        return Mono.fromCallable(callable).subscribeOn(stellarAuthScheduler);
+    }
+
+    private static <T> Mono<ServerResponse> ok(Mono<T> body) {
+        return body.flatMap(x -> ServerResponse.ok().bodyValue(x))
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "body is required")));
+    }
+
+    private <T> T validate(T body) {
+        Set<ConstraintViolation<T>> violations = validator.validate(body);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<T> violation = violations.iterator().next();
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, violation.getPropertyPath() + " " + violation.getMessage()
+            );
+        }
+        return body;
+    }
+}
@@ -0,0 +1,47 @@
+package ru.bitsouth.libs.springstellarauthstarter.controllers.reactive;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import ru.bitsouth.libs.springstellarauthstarter.configuration.StellarAuthConfigurationProperties;
+import ru.bitsouth.libs.springstellarauthstarter.services.StellarToml;
+import ru.bitsouth.libs.springstellarauthstarter.services.StellarTomlService;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+@RequiredArgsConstructor
+public class StellarTomlHandler {
+    private static final MediaType TEXT_PLAIN_UTF8 = MediaType.parseMediaType("text/plain;charset=UTF-8");
+
+    private final StellarTomlService service;
+    private final StellarAuthConfigurationProperties properties;
+
+    public Mono<ServerResponse> getToml(ServerRequest request) {
+        HttpHeaders requestHeaders = request.headers().asHttpHeaders();
+        StellarToml toml = service.getDocument(request.uri().getHost());
+        boolean gzip = toml.acceptsGzip(requestHeaders);
+        boolean notModified = toml.isNotModified(requestHeaders);
+        HttpStatus status = notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK;
+        ServerResponse.BodyBuilder response = ServerResponse.status(status)
+                .eTag(gzip ? toml.getGzipEtag() : toml.getEtag())
+                .lastModified(Instant.ofEpochMilli(toml.getLastModified()))
+                .cacheControl(CacheControl.maxAge(properties.getToml().getMaxAge(), TimeUnit.SECONDS).cachePublic())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .header(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+        if (notModified) {
+            return response.build();
+        }
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response
+                .contentType(TEXT_PLAIN_UTF8)
+                .bodyValue(gzip ? toml.getGzipBody() : toml.getBody());
+    }
+}
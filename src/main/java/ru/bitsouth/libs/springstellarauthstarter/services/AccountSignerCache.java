@@ -0,0 +1,151 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import org.stellar.sdk.StrKey;
+import ru.bitsouth.libs.springstellarauthstarter.configuration.StellarAuthConfigurationProperties.SignerMissPolicy;
+
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Signer sets resolved by an {@link AccountSignerProvider}, kept per account until their TTL passes.
+ * <p>
+ * Issuing a challenge {@link #prefetch prefetches} the account, so by the time the signed challenge comes back its
+ * set is usually cached. An expired set is still served while a refresh runs in the background, and a failed
+ * refresh keeps it. Without a provider every account is verified against its master key.
+ */
+@Slf4j
+public class AccountSignerCache {
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    @Nullable
+    private final AccountSignerProvider provider;
+    private final long ttlNanos;
+    private final int capacity;
+    private final SignerMissPolicy missPolicy;
+    private final long lookupTimeoutMillis;
+    private final ConcurrentMap<String, Entry> cache = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+    public AccountSignerCache(
+            @Nullable AccountSignerProvider provider, long ttlSeconds, int capacity,
+            SignerMissPolicy missPolicy, long lookupTimeoutMillis
+    ) {
+        this.provider = provider;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.capacity = capacity;
+        this.missPolicy = missPolicy;
+        this.lookupTimeoutMillis = lookupTimeoutMillis;
+    }
+
+    public void prefetch(String accountId) {
+        if (provider != null) {
+            lookup(accountId, System.nanoTime());
+        }
+    }
+
+    /**
+     * Returns the cached set of the account. On a miss the lookup is started and, depending on the
+     * {@link SignerMissPolicy}, either the master key is used or the lookup is awaited.
+     */
+    public AccountSigners get(byte[] publicKey) {
+        if (provider == null) {
+            return AccountSigners.masterKey(publicKey);
+        }
+        String accountId = StrKey.encodeStellarAccountId(publicKey);
+        Entry entry = lookup(accountId, System.nanoTime());
+        AccountSigners signers = entry.signers;
+        if (signers != null) {
+            return signers;
+        }
+        if (missPolicy == SignerMissPolicy.MASTER_KEY) {
+            return AccountSigners.masterKey(publicKey);
+        }
+        return await(entry.loaded, publicKey);
+    }
+
+    private Entry lookup(String accountId, long now) {
+        Entry entry = cache.get(accountId);
+        if (entry == null) {
+            if (cache.size() >= capacity) {
+                sweep(now);
+            }
+            Entry created = new Entry();
+            entry = cache.size() < capacity ? cache.putIfAbsent(accountId, created) : null;
+            if (entry == null) {
+                entry = created;
+                refresh(accountId, created, now);
+            }
+        } else if (entry.expiresAt - now <= 0L && entry.refreshing.compareAndSet(false, true)) {
+            refresh(accountId, entry, now);
+        }
+        return entry;
+    }
+
+    private void refresh(String accountId, Entry entry, long now) {
+        CompletableFuture<AccountSigners> future;
+        try {
+            future = provider.getSigners(accountId);
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        future.whenComplete((signers, e) -> {
+            if (e != null) {
+                log.warn("signers of [{}] were not resolved: {}", accountId, String.valueOf(e));
+                if (entry.signers == null) {
+                    cache.remove(accountId, entry);
+                    entry.loaded.completeExceptionally(e);
+                }
+            } else {
+                entry.signers = signers != null
+                        ? signers
+                        : AccountSigners.masterKey(StrKey.decodeStellarAccountId(accountId));
+                entry.expiresAt = now + ttlNanos;
+                entry.loaded.complete(entry.signers);
+            }
+            entry.refreshing.set(false);
+        });
+    }
+
+    private AccountSigners await(CompletableFuture<AccountSigners> future, byte[] publicKey) {
+        AccountSigners signers;
+        try {
+            signers = future.get(lookupTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            throw new RuntimeException("Account signers are unavailable.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Account signers lookup was interrupted.", e);
+        }
+        return signers;
+    }
+
+    private void sweep(long now) {
+        long last = lastSweep.get();
+        if (now - last < SWEEP_INTERVAL_NANOS || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        for (Iterator<Entry> it = cache.values().iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            if (entry.signers != null && entry.expiresAt - now <= 0L) {
+                it.remove();
+            }
+        }
+    }
+
+    private static class Entry {
+        private final AtomicBoolean refreshing = new AtomicBoolean(true);
+        private final CompletableFuture<AccountSigners> loaded = new CompletableFuture<>();
+        private volatile AccountSigners signers;
+        private volatile long expiresAt;
+    }
+}
@@ -0,0 +1,15 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Source of account signer sets, e.g. Horizon or a ledger replica. Declare a bean of this type to accept
+ * challenges signed by multisig accounts; results are cached by {@link AccountSignerCache}, so a call may be slow
+ * but should not block the calling thread.
+ */
+public interface AccountSignerProvider {
+    /**
+     * @return future of the signer set, completed with {@code null} when the account does not exist
+     */
+    CompletableFuture<AccountSigners> getSigners(String accountId);
+}
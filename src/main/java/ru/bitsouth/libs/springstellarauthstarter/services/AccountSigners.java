@@ -0,0 +1,79 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import lombok.Getter;
+import org.stellar.sdk.KeyPair;
+import ru.bitsouth.libs.springstellarauthstarter.services.xdr.ChallengeTransaction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Signers of an account with their weights and the threshold a challenge has to meet, usually the account's
+ * medium threshold. Key pairs and signature hints are built once per set, so verifying against a cached set
+ * allocates nothing.
+ */
+@Getter
+public class AccountSigners {
+    private final int threshold;
+    private final List<Signer> signers;
+
+    public AccountSigners(int threshold, List<Signer> signers) {
+        this.threshold = threshold;
+        this.signers = Collections.unmodifiableList(new ArrayList<>(signers));
+    }
+
+    /**
+     * The signer set of an account that does not exist yet: its master key alone.
+     */
+    public static AccountSigners masterKey(byte[] publicKey) {
+        return new AccountSigners(0, Collections.singletonList(new Signer(KeyPair.fromPublicKey(publicKey), 1)));
+    }
+
+    /**
+     * Sums the weights of the signers with a valid signature on {@code hash}, counting every signer once.
+     *
+     * @param excludedKey public key whose signature never counts, i.e. the server key
+     */
+    public int getSignedWeight(ChallengeTransaction tx, byte[] hash, byte[] excludedKey) {
+        boolean[] counted = new boolean[signers.size()];
+        int weight = 0;
+        for (int i = 0; i < tx.getSignatureCount(); i++) {
+            int hint = tx.getSignatureHint(i);
+            for (int j = 0; j < counted.length; j++) {
+                Signer signer = signers.get(j);
+                if (!counted[j] && signer.hint == hint && !Arrays.equals(signer.publicKey, excludedKey)
+                        && signer.keyPair.verify(hash, tx.getSignature(i))) {
+                    counted[j] = true;
+                    weight += signer.weight;
+                    break;
+                }
+            }
+        }
+        return weight;
+    }
+
+    public boolean isMetBy(int weight) {
+        return weight > 0 && weight >= threshold;
+    }
+
+    @Getter
+    public static class Signer {
+        private final KeyPair keyPair;
+        private final int weight;
+        private final byte[] publicKey;
+        private final int hint;
+
+        public Signer(String accountId, int weight) {
+            this(KeyPair.fromAccountId(accountId), weight);
+        }
+
+        public Signer(KeyPair keyPair, int weight) {
+            this.keyPair = keyPair;
+            this.weight = weight;
+            this.publicKey = keyPair.getPublicKey();
+            this.hint = ChallengeTransaction.signatureHint(publicKey);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Supplies extra claims for a token without blocking the issuing thread.
+ * <p>
+ * All enrichers of a token are started together and their claims are merged in bean order, so issuing waits
+ * for the slowest enricher only. Registered claims ({@code iss}, {@code sub}, {@code exp}, ...) can't be replaced.
+ */
+public interface AsyncJwtEnrichInterface {
+    CompletableFuture<Map<String, Object>> enrich(String publicKey);
+
+    /**
+     * How long claims of one public key may be reused; zero disables caching.
+     */
+    default Duration getCacheTtl() {
+        return Duration.ZERO;
+    }
+
+    /**
+     * Time the enricher is given; {@code null} means {@code spring.stellar.auth.enrichment.timeout-millis}.
+     */
+    @Nullable
+    default Duration getTimeout() {
+        return null;
+    }
+
+    /**
+     * Whether a token is refused when the enricher fails or times out, instead of being issued without its claims.
+     */
+    default boolean isRequired() {
+        return true;
+    }
+}
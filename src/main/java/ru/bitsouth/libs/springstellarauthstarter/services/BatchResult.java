@@ -0,0 +1,42 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.lang.Nullable;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class BatchResult<T> {
+    @Nullable
+    private final T value;
+    @Nullable
+    private final String error;
+
+    public static <T> BatchResult<T> success(T value) {
+        return new BatchResult<>(value, null);
+    }
+
+    public static <T> BatchResult<T> failure(String error) {
+        return new BatchResult<>(null, error);
+    }
+
+    public static <T> BatchResult<T> of(Supplier<T> supplier) {
+        try {
+            return success(supplier.get());
+        } catch (RuntimeException e) {
+            return failure(String.valueOf(e.getMessage()));
+        }
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    public <R> BatchResult<R> map(Function<T, R> mapper) {
+        return isSuccess() ? of(() -> mapper.apply(value)) : failure(error);
+    }
+}
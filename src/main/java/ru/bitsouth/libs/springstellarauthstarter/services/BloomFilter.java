@@ -0,0 +1,66 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Insert-only Bloom filter over strings. Lookups hash the characters in place and allocate nothing;
+ * removal is done by building a new filter.
+ */
+class BloomFilter {
+    private final AtomicLongArray bits;
+    private final int bitCount;
+    private final int hashCount;
+
+    BloomFilter(int expectedEntries, double falsePositiveRate) {
+        double ln2 = Math.log(2);
+        long optimalBits = (long) Math.ceil(-Math.max(expectedEntries, 1) * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.bitCount = (int) Math.min(Math.max(optimalBits, 64L), Integer.MAX_VALUE - 63L) & ~63;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / Math.max(expectedEntries, 1) * ln2));
+        this.bits = new AtomicLongArray(bitCount >>> 6);
+    }
+
+    void add(long seed, CharSequence value) {
+        long hash = hash(seed, value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+            long mask = 1L << bit;
+            int word = bit >>> 6;
+            long current;
+            do {
+                current = bits.get(word);
+            } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    boolean mightContain(long seed, CharSequence value) {
+        long hash = hash(seed, value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+            if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * FNV-1a over the UTF-16 chars followed by the murmur3 finalizer.
+     */
+    private static long hash(long seed, CharSequence value) {
+        long hash = 0xcbf29ce484222325L ^ seed;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
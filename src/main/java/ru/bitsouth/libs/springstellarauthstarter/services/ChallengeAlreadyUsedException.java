@@ -0,0 +1,11 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ChallengeAlreadyUsedException extends RuntimeException {
+    public ChallengeAlreadyUsedException(String message) {
+        super(message);
+    }
+}
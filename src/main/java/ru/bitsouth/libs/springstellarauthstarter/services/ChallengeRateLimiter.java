@@ -0,0 +1,26 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import ru.bitsouth.libs.springstellarauthstarter.configuration.StellarAuthConfigurationProperties;
+import ru.bitsouth.libs.springstellarauthstarter.services.RateLimiterStore.Scope;
+
+/**
+ * Limits challenge issuance per account and per client address. The counters live in a {@link RateLimiterStore},
+ * {@link InMemoryRateLimiterStore} unless the application declares one.
+ */
+public class ChallengeRateLimiter {
+    private final boolean enabled;
+    private final RateLimiterStore store;
+
+    public ChallengeRateLimiter(StellarAuthConfigurationProperties.RateLimit rateLimit, RateLimiterStore store) {
+        this.enabled = rateLimit.getEnabled();
+        this.store = store;
+    }
+
+    public boolean tryAcquireAccount(String account, int permits) {
+        return !enabled || store.tryAcquire(Scope.ACCOUNT, account, permits);
+    }
+
+    public boolean tryAcquireAddress(String address, int permits) {
+        return !enabled || store.tryAcquire(Scope.ADDRESS, address, permits);
+    }
+}
@@ -0,0 +1,29 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+/**
+ * Replay state of issued challenges. Declare a bean of this type to share the state between nodes through
+ * an external store; the starter then backs off from its in-memory and file-backed tables.
+ * <p>
+ * A verification calls one of the methods once, so a networked store should answer each call, including
+ * the batch form, in a single round trip.
+ */
+public interface ConsumedChallengeRegistry {
+    /**
+     * Marks the challenge transaction hash as consumed until {@code expiresAt} (epoch seconds).
+     *
+     * @return {@code false} if the hash was already consumed and has not expired yet
+     */
+    boolean markConsumed(byte[] hash, long expiresAt);
+
+    /**
+     * Batch form of {@link #markConsumed(byte[], long)}; hashes are marked in order,
+     * so a hash repeated within the batch is reported as consumed from its second occurrence on.
+     */
+    default boolean[] markConsumed(byte[][] hashes, long[] expiresAt) {
+        boolean[] result = new boolean[hashes.length];
+        for (int i = 0; i < hashes.length; i++) {
+            result[i] = markConsumed(hashes[i], expiresAt[i]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,87 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Signer sets read from a local file, a stand-in for a network lookup in tests and closed deployments.
+ * <p>
+ * Every line is {@code <account> <threshold> <signer>=<weight>...}; blank lines and {@code #} comments are skipped.
+ * Accounts missing from the file are treated as not existing. The file is read again when it changes.
+ */
+@Slf4j
+public class FileAccountSignerProvider implements AccountSignerProvider {
+    private final Path file;
+    private volatile Map<String, AccountSigners> accounts = Collections.emptyMap();
+    private volatile FileTime lastModified;
+
+    public FileAccountSignerProvider(Path file) {
+        this.file = file;
+        reloadIfModified();
+    }
+
+    @Override
+    public CompletableFuture<AccountSigners> getSigners(String accountId) {
+        try {
+            reloadIfModified();
+        } catch (RuntimeException e) {
+            log.error("Can't reload account signers from [{}]", file, e);
+        }
+        return CompletableFuture.completedFuture(accounts.get(accountId));
+    }
+
+    private synchronized void reloadIfModified() {
+        FileTime modified;
+        try {
+            modified = Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            throw new RuntimeException("Can't read account signers file.", e);
+        }
+        if (!modified.equals(lastModified)) {
+            accounts = read(file);
+            lastModified = modified;
+        }
+    }
+
+    static Map<String, AccountSigners> read(Path file) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Can't read account signers file.", e);
+        }
+        Map<String, AccountSigners> accounts = new HashMap<>();
+        for (String line : lines) {
+            String[] parts = line.trim().split("\\s+");
+            if (parts[0].isEmpty() || parts[0].startsWith("#")) {
+                continue;
+            }
+            if (parts.length < 3) {
+                throw new RuntimeException("Account signers line has no signers.");
+            }
+            List<AccountSigners.Signer> signers = new ArrayList<>(parts.length - 2);
+            for (int i = 2; i < parts.length; i++) {
+                int separator = parts[i].indexOf('=');
+                if (separator < 0) {
+                    throw new RuntimeException("Account signer has no weight.");
+                }
+                signers.add(new AccountSigners.Signer(
+                        parts[i].substring(0, separator), Integer.parseInt(parts[i].substring(separator + 1))
+                ));
+            }
+            accounts.put(parts[0], new AccountSigners(Integer.parseInt(parts[1]), signers));
+        }
+        return accounts;
+    }
+}
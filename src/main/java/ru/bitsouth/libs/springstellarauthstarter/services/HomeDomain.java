@@ -0,0 +1,34 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import lombok.Getter;
+import org.stellar.sdk.Network;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A home domain with the network its challenges are built for and the server keys signing them. The manageData
+ * name and the network id are computed once, so resolving a domain costs no hashing or encoding.
+ */
+@Getter
+public class HomeDomain {
+    private final String name;
+    private final String dataName;
+    private final byte[] dataNameBytes;
+    private final String networkPassphrase;
+    private final byte[] networkId;
+    private final ServerKeyRing keyRing;
+    private volatile StellarToml toml;
+
+    public HomeDomain(String name, String networkPassphrase, ServerKeyRing keyRing) {
+        this.name = name;
+        this.dataName = name + " auth";
+        this.dataNameBytes = dataName.getBytes(StandardCharsets.UTF_8);
+        this.networkPassphrase = networkPassphrase;
+        this.networkId = new Network(networkPassphrase).getNetworkId();
+        this.keyRing = keyRing;
+    }
+
+    void setToml(StellarToml toml) {
+        this.toml = toml;
+    }
+}
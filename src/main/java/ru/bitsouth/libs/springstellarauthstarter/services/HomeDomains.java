@@ -0,0 +1,64 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import org.springframework.lang.Nullable;
+import ru.bitsouth.libs.springstellarauthstarter.services.xdr.ChallengeTransaction;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Home domains served by this node, the first one being the default. A domain is found by its name, with or
+ * without the {@code " auth"} suffix of its manageData name, and a challenge by comparing its manageData name
+ * bytes, so both lookups go through tables built at startup.
+ */
+public class HomeDomains {
+    private final HomeDomain[] domains;
+    private final List<HomeDomain> all;
+    private final Map<String, HomeDomain> byName = new HashMap<>();
+
+    public HomeDomains(List<HomeDomain> domains) {
+        if (domains.isEmpty()) {
+            throw new RuntimeException("No home domain is configured.");
+        }
+        this.domains = domains.toArray(new HomeDomain[0]);
+        this.all = Collections.unmodifiableList(Arrays.asList(this.domains));
+        for (HomeDomain domain : domains) {
+            if (byName.put(domain.getName(), domain) != null || byName.put(domain.getDataName(), domain) != null) {
+                throw new RuntimeException("Home domain " + domain.getName() + " is configured twice.");
+            }
+        }
+    }
+
+    public HomeDomain getDefault() {
+        return domains[0];
+    }
+
+    public List<HomeDomain> getAll() {
+        return all;
+    }
+
+    /**
+     * @param name requested home domain, {@code null} for the default one
+     * @return the domain, {@code null} if it is not served here
+     */
+    @Nullable
+    public HomeDomain get(@Nullable String name) {
+        return name == null ? domains[0] : byName.get(name);
+    }
+
+    /**
+     * @return the domain whose manageData name the challenge carries, {@code null} if there is none
+     */
+    @Nullable
+    public HomeDomain get(ChallengeTransaction tx) {
+        for (HomeDomain domain : domains) {
+            if (tx.isDataName(domain.getDataNameBytes())) {
+                return domain;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,81 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+/**
+ * Fixed-size, set-associative table of consumed challenge hashes.
+ * <p>
+ * Each hash maps to one bucket of {@link #WAYS} slots, so a lookup touches at most {@value #WAYS} entries.
+ * A slot is free again once its expiry (the challenge {@code maxTime}) has passed, and a challenge
+ * past its {@code maxTime} is rejected anyway, so eviction needs no background sweeping and memory
+ * never grows beyond the initial arrays. Only the first 128 bits of the hash are stored.
+ * <p>
+ * A full bucket fails the login rather than evicting a live hash, which would let that challenge be replayed;
+ * {@link #capacityFor} sizes the table so that this practically never happens.
+ */
+public class InMemoryConsumedChallengeRegistry implements ConsumedChallengeRegistry {
+    static final int WAYS = 8;
+    private static final int MAX_STRIPES = 1024;
+    private static final int MAX_CAPACITY = 1 << 26;
+
+    private final long[] high;
+    private final long[] low;
+    private final long[] expiries;
+    private final Object[] stripes;
+    private final int bucketMask;
+
+    public InMemoryConsumedChallengeRegistry(int capacity) {
+        int buckets = Integer.highestOneBit(Math.max(capacity / WAYS, 1) * 2 - 1);
+        this.bucketMask = buckets - 1;
+        this.high = new long[buckets * WAYS];
+        this.low = new long[buckets * WAYS];
+        this.expiries = new long[buckets * WAYS];
+        this.stripes = new Object[Math.min(buckets, MAX_STRIPES)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    /**
+     * Capacity with at least one bucket per live challenge. Buckets then hold at most one live hash on average,
+     * and a login finds its bucket full with a probability below 1e-5.
+     */
+    public static int capacityFor(long liveChallenges) {
+        return (int) Math.min(Math.max(liveChallenges, 1) * WAYS, MAX_CAPACITY);
+    }
+
+    @Override
+    public boolean markConsumed(byte[] hash, long expiresAt) {
+        long h = readLong(hash, 0);
+        long l = readLong(hash, 8);
+        int bucket = (int) readLong(hash, 16) & bucketMask;
+        int from = bucket * WAYS;
+        long now = System.currentTimeMillis() / 1000L;
+
+        synchronized (stripes[bucket & (stripes.length - 1)]) {
+            int free = -1;
+            for (int slot = from; slot < from + WAYS; slot++) {
+                if (expiries[slot] <= now) {
+                    if (free < 0) {
+                        free = slot;
+                    }
+                } else if (high[slot] == h && low[slot] == l) {
+                    return false;
+                }
+            }
+            if (free < 0) {
+                throw new ServerBusyException("Too many outstanding challenges.");
+            }
+            high[free] = h;
+            low[free] = l;
+            expiries[free] = expiresAt;
+            return true;
+        }
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long result = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            result = (result << 8) | (bytes[i] & 0xFF);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,92 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import ru.bitsouth.libs.springstellarauthstarter.configuration.StellarAuthConfigurationProperties;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets of this node, per account and per client address.
+ * <p>
+ * Buckets follow the generic cell rate algorithm: a bucket is one {@link AtomicLong} holding the moment it is
+ * full again, and taking a permit is a single CAS. A bucket past that moment is idle and equal to a new one,
+ * so idle buckets are dropped whenever the map reaches its size limit. Keys that still do not fit share one
+ * overflow bucket, which keeps memory bounded without letting new keys through unlimited.
+ */
+public class InMemoryRateLimiterStore implements RateLimiterStore {
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Buckets accounts;
+    private final Buckets addresses;
+
+    public InMemoryRateLimiterStore(StellarAuthConfigurationProperties.RateLimit rateLimit) {
+        this.accounts = new Buckets(rateLimit.getAccount(), rateLimit.getMaxKeys());
+        this.addresses = new Buckets(rateLimit.getAddress(), rateLimit.getMaxKeys());
+    }
+
+    @Override
+    public boolean tryAcquire(Scope scope, String key, int permits) {
+        return (scope == Scope.ACCOUNT ? accounts : addresses).tryAcquire(key, permits);
+    }
+
+    private static class Buckets {
+        private final ConcurrentMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+        private final AtomicLong overflow = new AtomicLong(System.nanoTime());
+        private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final int maxKeys;
+
+        private Buckets(StellarAuthConfigurationProperties.RateLimit.Limit limit, int maxKeys) {
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / limit.getPermitsPerSecond());
+            this.burstNanos = intervalNanos * limit.getBurst();
+            this.maxKeys = maxKeys;
+        }
+
+        private boolean tryAcquire(String key, int permits) {
+            long now = System.nanoTime();
+            AtomicLong bucket = buckets.get(key);
+            if (bucket == null) {
+                bucket = newBucket(key, now);
+            }
+            long increment = intervalNanos * permits;
+            while (true) {
+                long fullAt = bucket.get();
+                long next = (fullAt - now > 0L ? fullAt : now) + increment;
+                if (next - now > burstNanos) {
+                    return false;
+                }
+                if (bucket.compareAndSet(fullAt, next)) {
+                    return true;
+                }
+            }
+        }
+
+        private AtomicLong newBucket(String key, long now) {
+            if (buckets.size() >= maxKeys) {
+                sweep(now);
+                if (buckets.size() >= maxKeys) {
+                    return overflow;
+                }
+            }
+            AtomicLong bucket = new AtomicLong(now);
+            AtomicLong existing = buckets.putIfAbsent(key, bucket);
+            return existing != null ? existing : bucket;
+        }
+
+        private void sweep(long now) {
+            long last = lastSweep.get();
+            if (now - last < SWEEP_INTERVAL_NANOS || !lastSweep.compareAndSet(last, now)) {
+                return;
+            }
+            for (Iterator<AtomicLong> it = buckets.values().iterator(); it.hasNext(); ) {
+                if (it.next().get() - now <= 0L) {
+                    it.remove();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.security.MessageDigest;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Refresh sessions of this node. Expired sessions are swept every {@code sweepIntervalSeconds} and when the store
+ * is full; a store still full after that refuses new sessions.
+ */
+@Slf4j
+public class InMemoryRefreshTokenStore implements RefreshTokenStore {
+    private final ConcurrentMap<String, RefreshSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong();
+    private final int capacity;
+    private final long sweepIntervalSeconds;
+    private final ScheduledExecutorService scheduler;
+
+    public InMemoryRefreshTokenStore(int capacity, long sweepIntervalSeconds) {
+        this.capacity = capacity;
+        this.sweepIntervalSeconds = sweepIntervalSeconds;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("stellar-auth-refresh-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(
+                () -> sweep(System.currentTimeMillis() / 1000L),
+                sweepIntervalSeconds, sweepIntervalSeconds, TimeUnit.SECONDS
+        );
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public boolean save(RefreshSession session) {
+        if (sessions.size() >= capacity) {
+            if (sweep(System.currentTimeMillis() / 1000L) && sessions.size() >= capacity) {
+                log.warn("refresh session store is full, logins get no refresh token");
+            }
+            if (sessions.size() >= capacity) {
+                return false;
+            }
+        }
+        sessions.put(session.getId(), session);
+        return true;
+    }
+
+    @Override
+    public RefreshSession get(String sessionId) {
+        return sessions.get(sessionId);
+    }
+
+    @Override
+    public RefreshSession rotate(String sessionId, byte[] presentedSecretHash, byte[] nextSecretHash) {
+        RefreshSession[] previous = new RefreshSession[1];
+        sessions.computeIfPresent(sessionId, (id, session) -> {
+            previous[0] = session;
+            return MessageDigest.isEqual(session.getSecretHash(), presentedSecretHash)
+                    ? session.withSecretHash(nextSecretHash)
+                    : session;
+        });
+        return previous[0];
+    }
+
+    @Override
+    public void revoke(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    /**
+     * Drops expired sessions, at most once per second.
+     *
+     * @return whether the sessions were swept
+     */
+    boolean sweep(long now) {
+        long last = lastSweep.get();
+        if (now == last || !lastSweep.compareAndSet(last, now)) {
+            return false;
+        }
+        for (Iterator<RefreshSession> it = sessions.values().iterator(); it.hasNext(); ) {
+            if (it.next().getExpiresAt() <= now) {
+                it.remove();
+            }
+        }
+        return true;
+    }
+}
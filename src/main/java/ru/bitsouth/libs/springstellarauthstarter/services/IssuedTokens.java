@@ -0,0 +1,13 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.lang.Nullable;
+
+@Getter
+@RequiredArgsConstructor
+public class IssuedTokens {
+    private final String token;
+    @Nullable
+    private final String refreshToken;
+}
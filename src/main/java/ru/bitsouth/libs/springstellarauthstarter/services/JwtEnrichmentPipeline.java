@@ -0,0 +1,200 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the {@link AsyncJwtEnrichInterface} beans of a token concurrently.
+ * <p>
+ * Every enricher gets its own deadline counted from {@link #start}. Claims of cacheable enrichers are kept per
+ * public key in a bounded map until their TTL passes; a failed call is never cached.
+ */
+@Slf4j
+public class JwtEnrichmentPipeline {
+    private static final Set<String> REGISTERED_CLAIMS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            Claims.ISSUER, Claims.SUBJECT, Claims.AUDIENCE, Claims.EXPIRATION,
+            Claims.NOT_BEFORE, Claims.ISSUED_AT, Claims.ID
+    )));
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final List<Stage> stages = new ArrayList<>();
+    private final StellarAuthMetrics metrics;
+
+    public JwtEnrichmentPipeline(
+            List<AsyncJwtEnrichInterface> enrichers, StellarAuthMetrics metrics, long timeoutMillis, int cacheCapacity
+    ) {
+        this.metrics = metrics;
+        for (AsyncJwtEnrichInterface enricher : enrichers) {
+            long timeoutNanos = enricher.getTimeout() != null
+                    ? enricher.getTimeout().toNanos()
+                    : TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            stages.add(new Stage(enricher, timeoutNanos, enricher.getCacheTtl().toNanos(), cacheCapacity));
+        }
+    }
+
+    public Pending start(String publicKey) {
+        long startedAt = System.nanoTime();
+        List<CompletableFuture<Map<String, Object>>> futures = new ArrayList<>(stages.size());
+        for (Stage stage : stages) {
+            futures.add(stage.get(publicKey, startedAt));
+        }
+        return new Pending(publicKey, startedAt, futures);
+    }
+
+    public class Pending {
+        private final String publicKey;
+        private final long startedAt;
+        private final List<CompletableFuture<Map<String, Object>>> futures;
+
+        private Pending(String publicKey, long startedAt, List<CompletableFuture<Map<String, Object>>> futures) {
+            this.publicKey = publicKey;
+            this.startedAt = startedAt;
+            this.futures = futures;
+        }
+
+        /**
+         * Waits for every enricher up to its deadline and adds the claims that are not registered ones.
+         */
+        public void addTo(JwtBuilder jwtBuilder) {
+            for (int i = 0; i < futures.size(); i++) {
+                Stage stage = stages.get(i);
+                Map<String, Object> claims = await(stage, futures.get(i));
+                if (claims == null) {
+                    continue;
+                }
+                claims.forEach((name, value) -> {
+                    if (REGISTERED_CLAIMS.contains(name)) {
+                        log.debug("registered claim [{}] from {} was ignored", name, stage.enricher);
+                    } else {
+                        jwtBuilder.claim(name, value);
+                    }
+                });
+            }
+        }
+
+        private Map<String, Object> await(Stage stage, CompletableFuture<Map<String, Object>> future) {
+            long remaining = startedAt + stage.timeoutNanos - System.nanoTime();
+            try {
+                return future.get(Math.max(remaining, 0L), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                stage.evict(publicKey, future);
+                return fail(stage, e);
+            } catch (ExecutionException e) {
+                return fail(stage, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Token enrichment was interrupted.", e);
+            }
+        }
+    }
+
+    private Map<String, Object> fail(Stage stage, Throwable cause) {
+        metrics.recordEnricherFailure(stage.enricher.getClass());
+        if (stage.enricher.isRequired()) {
+            throw new RuntimeException("Token enrichment failed.", cause);
+        }
+        log.warn("claims of {} were skipped: {}", stage.enricher, String.valueOf(cause));
+        return null;
+    }
+
+    private class Stage {
+        private final AsyncJwtEnrichInterface enricher;
+        private final long timeoutNanos;
+        private final long ttlNanos;
+        private final int cacheCapacity;
+        private final ConcurrentMap<String, CachedClaims> cache = new ConcurrentHashMap<>();
+        private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+        private Stage(AsyncJwtEnrichInterface enricher, long timeoutNanos, long ttlNanos, int cacheCapacity) {
+            this.enricher = enricher;
+            this.timeoutNanos = timeoutNanos;
+            this.ttlNanos = ttlNanos;
+            this.cacheCapacity = cacheCapacity;
+        }
+
+        private CompletableFuture<Map<String, Object>> get(String publicKey, long now) {
+            if (ttlNanos <= 0L) {
+                return call(publicKey);
+            }
+            CachedClaims cached = cache.get(publicKey);
+            if (cached != null && cached.expiresAt - now > 0L) {
+                return cached.claims;
+            }
+            CompletableFuture<Map<String, Object>> claims = call(publicKey);
+            if (cached == null && cache.size() >= cacheCapacity) {
+                sweep(now);
+            }
+            if (cached != null || cache.size() < cacheCapacity) {
+                CachedClaims entry = new CachedClaims(claims, now + ttlNanos);
+                cache.put(publicKey, entry);
+                claims.whenComplete((x, e) -> {
+                    if (e != null) {
+                        cache.remove(publicKey, entry);
+                    }
+                });
+            }
+            return claims;
+        }
+
+        /**
+         * Drops a timed-out call from the cache, so the next token calls the enricher again instead of waiting
+         * on the same call until the TTL passes. The call itself is left running: tokens issued concurrently for
+         * the same key share it and wait for it until their own deadlines.
+         */
+        private void evict(String publicKey, CompletableFuture<Map<String, Object>> claims) {
+            CachedClaims cached = cache.get(publicKey);
+            if (cached != null && cached.claims == claims) {
+                cache.remove(publicKey, cached);
+            }
+        }
+
+        private CompletableFuture<Map<String, Object>> call(String publicKey) {
+            long start = System.nanoTime();
+            CompletableFuture<Map<String, Object>> claims;
+            try {
+                claims = enricher.enrich(publicKey);
+            } catch (RuntimeException e) {
+                claims = new CompletableFuture<>();
+                claims.completeExceptionally(e);
+            }
+            claims.whenComplete((x, e) -> metrics.recordEnricher(enricher.getClass(), System.nanoTime() - start));
+            return claims;
+        }
+
+        private void sweep(long now) {
+            long last = lastSweep.get();
+            if (now - last < SWEEP_INTERVAL_NANOS || !lastSweep.compareAndSet(last, now)) {
+                return;
+            }
+            for (Iterator<CachedClaims> it = cache.values().iterator(); it.hasNext(); ) {
+                if (it.next().expiresAt - now <= 0L) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class CachedClaims {
+        private final CompletableFuture<Map<String, Object>> claims;
+        private final long expiresAt;
+    }
+}
@@ -2,30 +2,30 @@ package ru.bitsouth.libs.springstellarauthstarter.services;
 
 import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.stereotype.Service;
-import org.springframework.validation.annotation.Validated;
 import ru.bitsouth.libs.springstellarauthstarter.configuration.StellarAuthConfigurationProperties;
+import ru.bitsouth.libs.springstellarauthstarter.services.jwt.JwtKeySet;
 
-import javax.validation.constraints.NotBlank;
 import java.time.Instant;
 import java.util.Date;
 import java.util.List;
 
-@Service
 @Slf4j
-@Validated
 @RequiredArgsConstructor
 public class JwtTokenCreator {
     private final StellarAuthConfigurationProperties properties;
     private final List<JwtEnrichInterface> enriches;
+    private final JwtKeySet jwtKeySet;
+    private final JwtEnrichmentPipeline enrichmentPipeline;
+    private final StellarAuthMetrics metrics;
+    private final StellarAuthEventLog eventLog;
 
-    public @NotBlank String issue(@NotBlank String publicKey, @NotBlank String txHash) {
-        log.info("issue jwt token for [{}]", publicKey);
-        log.debug("tx: {}", txHash);
+    public String issue(String publicKey, String txHash) {
+        log.debug("issue jwt token for [{}] and tx [{}]", publicKey, txHash);
 
+        long start = System.nanoTime();
+        JwtEnrichmentPipeline.Pending enrichment = enrichmentPipeline.start(publicKey);
         long now = System.currentTimeMillis() / 1000L;
 
         JwtBuilder jwtBuilder = Jwts.builder()
@@ -33,18 +33,21 @@ public class JwtTokenCreator {
                 .setSubject(publicKey)
                 .setIssuedAt(toDate(now))
                 .setExpiration(toDate(now + properties.getJwtTokenLifetime()))
-                .setId(txHash)
-                .signWith(SignatureAlgorithm.HS512, properties.getJwtTokenSecret());
+                .setId(txHash);
 
-        enriches.forEach(x -> {
-            log.debug("add custom claims: {}", x);
-            x.enrich(jwtBuilder, publicKey);
-        });
+        for (JwtEnrichInterface enrich : enriches) {
+            log.debug("add custom claims: {}", enrich);
+            long enrichStart = System.nanoTime();
+            enrich.enrich(jwtBuilder, publicKey);
+            metrics.recordEnricher(enrich.getClass(), System.nanoTime() - enrichStart);
+        }
 
-        String token = jwtBuilder.compact();
+        enrichment.addTo(jwtBuilder);
 
-        log.info("jwt token was issued for [{}]", publicKey);
-        log.debug("token: {}", token);
+        String token = jwtKeySet.sign(jwtBuilder);
+        metrics.recordJwtIssue(System.nanoTime() - start);
+
+        eventLog.tokenIssued(publicKey);
         return token;
     }
 
@@ -0,0 +1,94 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ru.bitsouth.libs.springstellarauthstarter.configuration.StellarAuthConfigurationProperties;
+import ru.bitsouth.libs.springstellarauthstarter.services.jwt.JwtKeySet;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verifies tokens issued by {@link JwtTokenCreator} against the {@link JwtKeySet}.
+ * <p>
+ * Verified tokens are kept until their {@code exp} in a bounded cache keyed by the whole compact token,
+ * so a repeated token skips the signature check and the claims parsing; the revocation check is done every
+ * time. A cached token is verified again once the key set was reloaded, so a token of a rotated-out key stops
+ * being accepted. Returned claims are shared between callers and must not be modified.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class JwtTokenVerifier {
+    private static final long SWEEP_INTERVAL_MILLIS = 1000L;
+
+    private final StellarAuthConfigurationProperties properties;
+    private final JwtKeySet jwtKeySet;
+    private final TokenRevocationList tokenRevocationList;
+    private final ConcurrentMap<String, VerifiedToken> cache = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong();
+
+    public Claims verify(String token) {
+        long now = System.currentTimeMillis();
+        long keyVersion = jwtKeySet.getVersion();
+        VerifiedToken verified = cache.get(token);
+        if (verified != null) {
+            if (verified.expiresAt > now && verified.keyVersion == keyVersion) {
+                throwIfRevoked(verified.claims);
+                return verified.claims;
+            }
+            cache.remove(token, verified);
+        }
+
+        Claims claims = jwtKeySet.verify(token);
+        log.debug("jwt token was verified for [{}]", claims.getSubject());
+
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            cache(token, new VerifiedToken(claims, expiration.getTime(), keyVersion), now);
+        }
+        throwIfRevoked(claims);
+        return claims;
+    }
+
+    private void throwIfRevoked(Claims claims) {
+        if (tokenRevocationList.isRevoked(claims.getId(), claims.getSubject(), claims.getIssuedAt())) {
+            throw new JwtException("JWT was revoked.");
+        }
+    }
+
+    private void cache(String token, VerifiedToken verified, long now) {
+        int capacity = properties.getVerification().getCacheCapacity();
+        if (cache.size() >= capacity) {
+            evictExpired(now);
+            if (cache.size() >= capacity) {
+                return;
+            }
+        }
+        cache.put(token, verified);
+    }
+
+    private void evictExpired(long now) {
+        long last = lastSweep.get();
+        if (now - last < SWEEP_INTERVAL_MILLIS || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        for (Iterator<Map.Entry<String, VerifiedToken>> it = cache.entrySet().iterator(); it.hasNext(); ) {
+            if (it.next().getValue().expiresAt <= now) {
+                it.remove();
+            }
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class VerifiedToken {
+        private final Claims claims;
+        private final long expiresAt;
+        private final long keyVersion;
+    }
+}
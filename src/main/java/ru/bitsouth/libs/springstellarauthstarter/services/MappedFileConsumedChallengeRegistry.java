@@ -0,0 +1,114 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@link InMemoryConsumedChallengeRegistry} table kept in a memory-mapped file, so consumed challenges survive
+ * a restart and a restarted node does not accept a replayed challenge.
+ * <p>
+ * Writes land in the page cache and reach the disk with the operating system's write-back or on {@link #close};
+ * they outlive the process but not a host crash. The file starts with a header holding the table geometry;
+ * an existing file keeps its geometry even if the configured capacity changed. One file serves one process.
+ */
+@Slf4j
+public class MappedFileConsumedChallengeRegistry implements ConsumedChallengeRegistry, Closeable {
+    private static final long MAGIC = 0x53544c5252504c31L; // "STLRRPL1"
+    private static final int HEADER_LENGTH = 16;
+    private static final int SLOT_LENGTH = 24;
+    private static final int WAYS = InMemoryConsumedChallengeRegistry.WAYS;
+    private static final int MAX_STRIPES = 1024;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer table;
+    private final Object[] stripes;
+    private final int bucketMask;
+
+    public MappedFileConsumedChallengeRegistry(Path file, int capacity) {
+        try {
+            this.channel = FileChannel.open(
+                    file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE
+            );
+            int buckets = channel.size() >= HEADER_LENGTH ? readBuckets(file) : bucketsFor(capacity);
+            long length = HEADER_LENGTH + (long) buckets * WAYS * SLOT_LENGTH;
+            if (length > Integer.MAX_VALUE) {
+                throw new RuntimeException("Replay file capacity is too large.");
+            }
+            this.table = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            this.bucketMask = buckets - 1;
+            table.putLong(0, MAGIC);
+            table.putInt(8, buckets);
+            table.putInt(12, WAYS);
+        } catch (IOException e) {
+            throw new RuntimeException("Can't open replay file.", e);
+        }
+        this.stripes = new Object[Math.min(bucketMask + 1, MAX_STRIPES)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    @Override
+    public boolean markConsumed(byte[] hash, long expiresAt) {
+        long h = readLong(hash, 0);
+        long l = readLong(hash, 8);
+        int bucket = (int) readLong(hash, 16) & bucketMask;
+        int from = HEADER_LENGTH + bucket * WAYS * SLOT_LENGTH;
+        int to = from + WAYS * SLOT_LENGTH;
+        long now = System.currentTimeMillis() / 1000L;
+
+        synchronized (stripes[bucket & (stripes.length - 1)]) {
+            int free = -1;
+            for (int slot = from; slot < to; slot += SLOT_LENGTH) {
+                if (table.getLong(slot + 16) <= now) {
+                    if (free < 0) {
+                        free = slot;
+                    }
+                } else if (table.getLong(slot) == h && table.getLong(slot + 8) == l) {
+                    return false;
+                }
+            }
+            if (free < 0) {
+                throw new ServerBusyException("Too many outstanding challenges.");
+            }
+            table.putLong(free, h);
+            table.putLong(free + 8, l);
+            table.putLong(free + 16, expiresAt);
+            return true;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        table.force();
+        channel.close();
+    }
+
+    private int readBuckets(Path file) throws IOException {
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_LENGTH);
+        int buckets = header.getInt(8);
+        if (header.getLong(0) != MAGIC || header.getInt(12) != WAYS || Integer.bitCount(buckets) != 1) {
+            throw new RuntimeException("Replay file " + file + " is not a replay table.");
+        }
+        log.info("replay table [{}] was reopened with {} buckets", file, buckets);
+        return buckets;
+    }
+
+    private static int bucketsFor(int capacity) {
+        return Integer.highestOneBit(Math.max(capacity / WAYS, 1) * 2 - 1);
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long result = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            result = (result << 8) | (bytes[i] & 0xFF);
+        }
+        return result;
+    }
+}
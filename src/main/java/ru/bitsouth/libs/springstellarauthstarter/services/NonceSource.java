@@ -0,0 +1,64 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Challenge nonces from a {@link SecureRandom}, read in batches of {@code batchSize} nonces.
+ * <p>
+ * Threads are spread over stripes by thread id, each with its own generator and buffer, so taking a nonce is
+ * a copy out of the buffer under an uncontended lock and only every {@code batchSize}-th call reaches the
+ * generator. Every buffered byte is handed out once.
+ * <p>
+ * Each stripe gets an instance of the DRBG (Java 9+) or SHA1PRNG algorithm, both seeded once and then free of shared
+ * state. The platform default on Linux is NativePRNG, whose instances all read one shared source under a global
+ * lock, which would put every stripe back behind a single lock.
+ */
+public class NonceSource {
+    private final int nonceLength;
+    private final Stripe[] stripes;
+
+    public NonceSource(int nonceLength, int batchSize, int stripes) {
+        this.nonceLength = nonceLength;
+        this.stripes = new Stripe[Integer.highestOneBit(Math.max(stripes, 1) * 2 - 1)];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new Stripe(nonceLength * batchSize);
+        }
+    }
+
+    public byte[] next() {
+        byte[] nonce = new byte[nonceLength];
+        Stripe stripe = stripes[(int) Thread.currentThread().getId() & (stripes.length - 1)];
+        synchronized (stripe) {
+            if (stripe.position == stripe.buffer.length) {
+                stripe.random.nextBytes(stripe.buffer);
+                stripe.position = 0;
+            }
+            System.arraycopy(stripe.buffer, stripe.position, nonce, 0, nonceLength);
+            stripe.position += nonceLength;
+        }
+        return nonce;
+    }
+
+    private static class Stripe {
+        private final SecureRandom random = newRandom();
+        private final byte[] buffer;
+        private int position;
+
+        private Stripe(int size) {
+            this.buffer = new byte[size];
+            this.position = size;
+        }
+
+        private static SecureRandom newRandom() {
+            for (String algorithm : new String[]{"DRBG", "SHA1PRNG"}) {
+                try {
+                    return SecureRandom.getInstance(algorithm);
+                } catch (NoSuchAlgorithmException e) {
+                    // try the next one
+                }
+            }
+            return new SecureRandom();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+/**
+ * Rate counters of {@link ChallengeRateLimiter}. Declare a bean of this type to share the counters between nodes
+ * through an external store; the starter then backs off from its in-memory buckets.
+ * <p>
+ * A challenge request calls {@link #tryAcquire} once per limit, so a networked store should take the permits in
+ * a single round trip, on its own clock, with the {@code spring.stellar.auth.rate-limit} limits of the scope.
+ * <p>
+ * Unlike {@link ConsumedChallengeRegistry} there is no file-backed implementation: a bucket refills within
+ * {@code burst / permitsPerSecond} seconds, so counters lost on a restart grant each key at most one extra burst,
+ * while lost replay state would let a live challenge be used twice.
+ */
+public interface RateLimiterStore {
+    /**
+     * Takes {@code permits} from the bucket of {@code key} in the {@code scope}.
+     *
+     * @return {@code false} if the bucket has fewer permits left; none are taken then
+     */
+    boolean tryAcquire(Scope scope, String key, int permits);
+
+    enum Scope {
+        ACCOUNT,
+        ADDRESS
+    }
+}
@@ -0,0 +1,31 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Refresh token family started by one SEP-10 login. Only the hash of the latest secret is kept,
+ * so every rotated-out token of the family is recognized as reused.
+ */
+@Getter
+@RequiredArgsConstructor
+public class RefreshSession {
+    /**
+     * Id of the family, also the {@code jti} of every access token issued for it.
+     */
+    private final String id;
+    private final String account;
+    private final byte[] secretHash;
+    /**
+     * Epoch seconds of the SEP-10 login.
+     */
+    private final long createdAt;
+    /**
+     * Epoch seconds; rotation does not extend it.
+     */
+    private final long expiresAt;
+
+    public RefreshSession withSecretHash(byte[] secretHash) {
+        return new RefreshSession(id, account, secretHash, createdAt, expiresAt);
+    }
+}
@@ -0,0 +1,134 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import ru.bitsouth.libs.springstellarauthstarter.configuration.StellarAuthConfigurationProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Opaque refresh tokens of the form {@code <session id>.<secret>}.
+ * <p>
+ * Every refresh rotates the secret. Presenting a rotated-out secret means the token leaked, so the whole session
+ * is revoked and the holder has to log in with SEP-10 again.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class RefreshTokenService {
+    private static final int SECRET_LENGTH = 32;
+
+    private final StellarAuthConfigurationProperties properties;
+    private final RefreshTokenStore refreshTokenStore;
+    private final JwtTokenCreator jwtTokenCreator;
+    private final TokenRevocationList tokenRevocationList;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    /**
+     * @return {@code null} if the store has no room for another session; the login then goes without refresh
+     */
+    @Nullable
+    public String issue(String account, String sessionId) {
+        byte[] secret = newSecret();
+        long now = System.currentTimeMillis() / 1000L;
+        long expiresAt = now + properties.getRefresh().getLifetime();
+        if (!refreshTokenStore.save(new RefreshSession(sessionId, account, hash(secret), now, expiresAt))) {
+            return null;
+        }
+        return format(sessionId, secret);
+    }
+
+    public IssuedTokens refresh(String refreshToken) {
+        String sessionId = getSessionId(refreshToken);
+        byte[] presented = hash(getSecret(refreshToken));
+        byte[] next = newSecret();
+
+        RefreshSession session = refreshTokenStore.rotate(sessionId, presented, hash(next));
+        throwIfSessionIsUnknown(session);
+        throwIfRefreshTokenIsReused(session, presented);
+        throwIfSessionIsExpired(session);
+        throwIfSessionIsRevoked(session);
+
+        String token = jwtTokenCreator.issue(session.getAccount(), sessionId);
+        return new IssuedTokens(token, format(sessionId, next));
+    }
+
+    public void revoke(String refreshToken) {
+        String sessionId = getSessionId(refreshToken);
+        RefreshSession session = refreshTokenStore.get(sessionId);
+        throwIfSessionIsUnknown(session);
+        if (!MessageDigest.isEqual(session.getSecretHash(), hash(getSecret(refreshToken)))) {
+            throw new InvalidRefreshTokenException("Unknown refresh token.");
+        }
+        refreshTokenStore.revoke(sessionId);
+        log.info("refresh session of [{}] was revoked", session.getAccount());
+    }
+
+    private void throwIfSessionIsUnknown(RefreshSession session) {
+        if (session == null) {
+            throw new InvalidRefreshTokenException("Unknown refresh token.");
+        }
+    }
+
+    private void throwIfRefreshTokenIsReused(RefreshSession session, byte[] presented) {
+        if (!MessageDigest.isEqual(session.getSecretHash(), presented)) {
+            refreshTokenStore.revoke(session.getId());
+            log.warn("rotated-out refresh token of [{}] was presented, session was revoked", session.getAccount());
+            throw new RefreshTokenReusedException("Refresh token was already used.");
+        }
+    }
+
+    private void throwIfSessionIsExpired(RefreshSession session) {
+        if (session.getExpiresAt() <= System.currentTimeMillis() / 1000L) {
+            refreshTokenStore.revoke(session.getId());
+            throw new InvalidRefreshTokenException("Refresh token expired.");
+        }
+    }
+
+    private void throwIfSessionIsRevoked(RefreshSession session) {
+        Date createdAt = new Date(session.getCreatedAt() * 1000L);
+        if (tokenRevocationList.isRevoked(session.getId(), session.getAccount(), createdAt)) {
+            refreshTokenStore.revoke(session.getId());
+            throw new InvalidRefreshTokenException("Refresh token was revoked.");
+        }
+    }
+
+    private static String getSessionId(String refreshToken) {
+        int separator = refreshToken.indexOf('.');
+        if (separator <= 0) {
+            throw new InvalidRefreshTokenException("Malformed refresh token.");
+        }
+        return refreshToken.substring(0, separator);
+    }
+
+    private static byte[] getSecret(String refreshToken) {
+        try {
+            return Base64.getUrlDecoder().decode(refreshToken.substring(refreshToken.indexOf('.') + 1));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRefreshTokenException("Malformed refresh token.");
+        }
+    }
+
+    private byte[] newSecret() {
+        byte[] secret = new byte[SECRET_LENGTH];
+        secureRandom.nextBytes(secret);
+        return secret;
+    }
+
+    private static String format(String sessionId, byte[] secret) {
+        return sessionId + '.' + Base64.getUrlEncoder().withoutPadding().encodeToString(secret);
+    }
+
+    private static byte[] hash(byte[] secret) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(secret);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Storage of refresh sessions. Declare a bean of this type to share sessions between nodes;
+ * a refresh makes a single {@link #rotate} call.
+ */
+public interface RefreshTokenStore {
+    /**
+     * @return {@code false} if the store has no room for the session
+     */
+    boolean save(RefreshSession session);
+
+    @Nullable
+    RefreshSession get(String sessionId);
+
+    /**
+     * Atomically replaces the secret hash of the session with {@code nextSecretHash} if the current one equals
+     * {@code presentedSecretHash}.
+     *
+     * @return the session as it was before the call, {@code null} if there is no such session
+     */
+    @Nullable
+    RefreshSession rotate(String sessionId, byte[] presentedSecretHash, byte[] nextSecretHash);
+
+    void revoke(String sessionId);
+}
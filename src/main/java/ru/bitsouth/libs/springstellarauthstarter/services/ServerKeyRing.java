@@ -0,0 +1,81 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.stellar.sdk.KeyPair;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Stellar server keys: the active key new challenges are signed with, plus every key a challenge is still
+ * accepted from.
+ * <p>
+ * Replicas sharing a ring verify each other's challenges. A rotation makes a new key active while the previous
+ * one stays accepted until its challenges expire. Keys are swapped as one immutable snapshot, so readers never
+ * see an active key that is not accepted.
+ */
+@Slf4j
+public class ServerKeyRing {
+    private final List<Consumer<ServerKeyRing>> listeners = new CopyOnWriteArrayList<>();
+    private volatile Keys keys;
+
+    public ServerKeyRing(KeyPair activeKey, Collection<KeyPair> acceptedKeys) {
+        this.keys = new Keys(activeKey, acceptedKeys);
+    }
+
+    public KeyPair getActiveKey() {
+        return keys.activeKey;
+    }
+
+    /**
+     * Active key first, then the other accepted keys; accepted keys may be public only.
+     */
+    public List<KeyPair> getVerificationKeys() {
+        return keys.verificationKeys;
+    }
+
+    /**
+     * Called with this ring after every {@link #reload}, on the reloading thread.
+     */
+    public void addListener(Consumer<ServerKeyRing> listener) {
+        listeners.add(listener);
+    }
+
+    public void reload(KeyPair activeKey, Collection<KeyPair> acceptedKeys) {
+        Keys reloaded = new Keys(activeKey, acceptedKeys);
+        Keys previous = keys;
+        keys = reloaded;
+        if (!Arrays.equals(previous.activeKey.getPublicKey(), activeKey.getPublicKey())) {
+            log.info("server signing key was rotated to [{}]", activeKey.getAccountId());
+        }
+        log.info("server key ring was reloaded with {} verification keys", reloaded.verificationKeys.size());
+        for (Consumer<ServerKeyRing> listener : listeners) {
+            listener.accept(this);
+        }
+    }
+
+    private static class Keys {
+        private final KeyPair activeKey;
+        private final List<KeyPair> verificationKeys;
+
+        private Keys(KeyPair activeKey, Collection<KeyPair> acceptedKeys) {
+            if (!activeKey.canSign()) {
+                throw new RuntimeException("Active server key has no secret seed.");
+            }
+            List<KeyPair> verificationKeys = new ArrayList<>(acceptedKeys.size() + 1);
+            verificationKeys.add(activeKey);
+            for (KeyPair key : acceptedKeys) {
+                if (verificationKeys.stream().noneMatch(x -> Arrays.equals(x.getPublicKey(), key.getPublicKey()))) {
+                    verificationKeys.add(key);
+                }
+            }
+            this.activeKey = activeKey;
+            this.verificationKeys = Collections.unmodifiableList(verificationKeys);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.stellar.sdk.KeyPair;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reloads a {@link ServerKeyRing} whenever its key file changes, e.g. a mounted secret updated on every replica.
+ * <p>
+ * The file lists one key per line, blank lines and {@code #} comments are skipped. The first key is the active one
+ * and must be a secret seed, the rest are accepted keys given either as secret seeds or as account ids.
+ * A file that can't be read at reload time is logged and the current keys are kept.
+ */
+@Slf4j
+public class ServerKeyRingFileWatcher {
+    private final ServerKeyRing serverKeyRing;
+    private final Path file;
+    private final long intervalSeconds;
+    private final ScheduledExecutorService scheduler;
+    private volatile FileTime lastModified;
+
+    public ServerKeyRingFileWatcher(ServerKeyRing serverKeyRing, Path file, long intervalSeconds) {
+        this.serverKeyRing = serverKeyRing;
+        this.file = file;
+        this.intervalSeconds = intervalSeconds;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("stellar-auth-key-ring-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    public static ServerKeyRing load(Path file) {
+        List<KeyPair> keys = read(file);
+        return new ServerKeyRing(keys.get(0), keys.subList(1, keys.size()));
+    }
+
+    public void start() {
+        lastModified = getLastModified();
+        scheduler.scheduleWithFixedDelay(this::reloadIfModified, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    public void reload() {
+        List<KeyPair> keys = read(file);
+        serverKeyRing.reload(keys.get(0), keys.subList(1, keys.size()));
+    }
+
+    private void reloadIfModified() {
+        try {
+            FileTime modified = getLastModified();
+            if (modified.equals(lastModified)) {
+                return;
+            }
+            reload();
+            lastModified = modified;
+        } catch (RuntimeException e) {
+            log.error("Can't reload server key ring from [{}]", file, e);
+        }
+    }
+
+    private FileTime getLastModified() {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            throw new RuntimeException("Can't read server key ring file.", e);
+        }
+    }
+
+    static List<KeyPair> read(Path file) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Can't read server key ring file.", e);
+        }
+        List<KeyPair> keys = new ArrayList<>();
+        for (String line : lines) {
+            String key = line.trim();
+            if (key.isEmpty() || key.startsWith("#")) {
+                continue;
+            }
+            keys.add(key.startsWith("S") ? KeyPair.fromSecretSeed(key) : KeyPair.fromAccountId(key));
+        }
+        if (keys.isEmpty() || !keys.get(0).canSign()) {
+            throw new RuntimeException("Server key ring file has no active secret seed.");
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,80 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ru.bitsouth.libs.springstellarauthstarter.configuration.StellarAuthConfigurationProperties.LogMode;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Per-request info lines of the auth flow.
+ * <p>
+ * {@code PLAIN} logs every event as a sentence, {@code SAMPLED} logs the same sentences for a share of the events
+ * and {@code STRUCTURED} logs every event as {@code key=value} pairs. Challenges and tokens are never logged.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class StellarAuthEventLog {
+    private final LogMode mode;
+    private final double sampleRate;
+
+    public void challengeIssued(String account, String homeDomain) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (mode == LogMode.STRUCTURED) {
+            log.info("event=challenge_issued account={} home_domain=\"{}\"", account, homeDomain);
+        } else {
+            log.info("challenge for account [{}] and home_domain [{}] was returned", account, homeDomain);
+        }
+    }
+
+    public void challengesIssued(int count, String homeDomain) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (mode == LogMode.STRUCTURED) {
+            log.info("event=challenges_issued count={} home_domain=\"{}\"", count, homeDomain);
+        } else {
+            log.info("{} challenges for home_domain [{}] were returned", count, homeDomain);
+        }
+    }
+
+    public void challengeRejected(StellarAuthMetrics.Check check, String reason) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (mode == LogMode.STRUCTURED) {
+            log.info("event=challenge_rejected check={} reason=\"{}\"", check.getTag(), reason);
+        } else {
+            log.info("challenge was rejected by [{}] check: {}", check.getTag(), reason);
+        }
+    }
+
+    public void tokenIssued(String account) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (mode == LogMode.STRUCTURED) {
+            log.info("event=token_issued account={}", account);
+        } else {
+            log.info("jwt token was issued for [{}]", account);
+        }
+    }
+
+    public void tokensProcessed(int count) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (mode == LogMode.STRUCTURED) {
+            log.info("event=tokens_processed count={}", count);
+        } else {
+            log.info("{} jwt tokens were processed", count);
+        }
+    }
+
+    private boolean isEnabled() {
+        return log.isInfoEnabled()
+                && (mode != LogMode.SAMPLED || ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+}
@@ -0,0 +1,82 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.lang.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Wraps the starter's thread pools, so they are not registered as {@link java.util.concurrent.Executor} beans
+ * and do not replace the application's own task executor.
+ */
+@RequiredArgsConstructor
+public class StellarAuthExecutor {
+    @Nullable
+    private final ExecutorService executorService;
+
+    /**
+     * An executor running every task on the calling thread.
+     */
+    public static StellarAuthExecutor inline() {
+        return new StellarAuthExecutor(null);
+    }
+
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        if (executorService == null) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            try {
+                future.complete(supplier.get());
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+            return future;
+        }
+        return CompletableFuture.supplyAsync(supplier, executorService);
+    }
+
+    /**
+     * Runs the task on the pool and waits for it, rethrowing its exception as is.
+     *
+     * @throws ServerBusyException if the pool's queue is full
+     */
+    public <T> T call(Supplier<T> supplier) {
+        if (executorService == null) {
+            return supplier.get();
+        }
+        CompletableFuture<T> future;
+        try {
+            future = CompletableFuture.supplyAsync(supplier, executorService);
+        } catch (RejectedExecutionException e) {
+            throw new ServerBusyException("Server is busy, retry later.");
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the task on the pool without waiting for it, e.g. as a server's request executor.
+     */
+    public void execute(Runnable task) {
+        if (executorService == null) {
+            task.run();
+        } else {
+            executorService.execute(task);
+        }
+    }
+
+    public void shutdown() {
+        if (executorService != null) {
+            executorService.shutdown();
+        }
+    }
+}
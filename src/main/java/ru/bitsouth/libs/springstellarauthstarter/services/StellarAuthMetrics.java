@@ -0,0 +1,131 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters of the auth pipeline. Meters are registered up front, so recording is a field access plus
+ * the timer update. Without a registry in the context they are registered in the empty global registry and do
+ * nothing.
+ * <ul>
+ *     <li>{@code stellar.auth.challenge} timer tagged by {@code stage}: build, sign, encode, decode, hash</li>
+ *     <li>{@code stellar.auth.check} timer and {@code stellar.auth.check.failures} counter tagged by {@code check}</li>
+ *     <li>{@code stellar.auth.jwt.issue} timer</li>
+ *     <li>{@code stellar.auth.jwt.enricher} timer and {@code stellar.auth.jwt.enricher.failures} counter
+ *     tagged by {@code enricher} class</li>
+ * </ul>
+ */
+public class StellarAuthMetrics {
+    private final MeterRegistry registry;
+    private final Timer challengeBuild;
+    private final Timer challengeSign;
+    private final Timer challengeEncode;
+    private final Timer challengeDecode;
+    private final Timer challengeHash;
+    private final Timer jwtIssue;
+    private final Map<Check, Timer> checks = new EnumMap<>(Check.class);
+    private final Map<Check, Counter> failures = new EnumMap<>(Check.class);
+    private final ConcurrentMap<Class<?>, Timer> enrichers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, Counter> enricherFailures = new ConcurrentHashMap<>();
+
+    public StellarAuthMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.challengeBuild = challengeTimer("build");
+        this.challengeSign = challengeTimer("sign");
+        this.challengeEncode = challengeTimer("encode");
+        this.challengeDecode = challengeTimer("decode");
+        this.challengeHash = challengeTimer("hash");
+        this.jwtIssue = Timer.builder("stellar.auth.jwt.issue")
+                .description("JWT build, enrichment and signing")
+                .register(registry);
+        for (Check check : Check.values()) {
+            checks.put(check, Timer.builder("stellar.auth.check")
+                    .description("Challenge and request checks")
+                    .tag("check", check.getTag())
+                    .register(registry));
+            failures.put(check, Counter.builder("stellar.auth.check.failures")
+                    .description("Requests rejected by a check")
+                    .tag("check", check.getTag())
+                    .register(registry));
+        }
+    }
+
+    public void recordChallenge(long buildNanos, long signNanos, long encodeNanos) {
+        challengeBuild.record(buildNanos, TimeUnit.NANOSECONDS);
+        challengeSign.record(signNanos, TimeUnit.NANOSECONDS);
+        challengeEncode.record(encodeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordDecode(long nanos) {
+        challengeDecode.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordHash(long nanos) {
+        challengeHash.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordCheck(Check check, long nanos) {
+        checks.get(check).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFailure(Check check) {
+        failures.get(check).increment();
+    }
+
+    public void recordJwtIssue(long nanos) {
+        jwtIssue.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordEnricher(Class<?> enricher, long nanos) {
+        enrichers.computeIfAbsent(enricher, x -> Timer.builder("stellar.auth.jwt.enricher")
+                .description("JwtEnrichInterface calls")
+                .tag("enricher", x.getName())
+                .register(registry)
+        ).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordEnricherFailure(Class<?> enricher) {
+        enricherFailures.computeIfAbsent(enricher, x -> Counter.builder("stellar.auth.jwt.enricher.failures")
+                .description("AsyncJwtEnrichInterface calls that failed or timed out")
+                .tag("enricher", x.getName())
+                .register(registry)
+        ).increment();
+    }
+
+    public enum Check {
+        ACCOUNT,
+        RATE_LIMIT,
+        HOME_DOMAIN,
+        BATCH_SIZE,
+        ENVELOPE,
+        SOURCE_ACCOUNT,
+        SERVER_SIGNATURE,
+        TIME_BOUNDS,
+        MANAGE_DATA,
+        OPERATION_SOURCE,
+        SIGNERS,
+        CLIENT_SIGNATURE,
+        REPLAY;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+
+        public String getTag() {
+            return tag;
+        }
+    }
+
+    private Timer challengeTimer(String stage) {
+        return Timer.builder("stellar.auth.challenge")
+                .description("Challenge build, sign, encode, decode and hash stages")
+                .tag("stage", stage)
+                .register(registry);
+    }
+}
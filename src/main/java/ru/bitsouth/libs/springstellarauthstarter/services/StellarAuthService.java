@@ -2,165 +2,401 @@ package ru.bitsouth.libs.springstellarauthstarter.services;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
-import org.springframework.validation.annotation.Validated;
-import org.stellar.sdk.*;
-import org.stellar.sdk.xdr.DecoratedSignature;
-import org.stellar.sdk.xdr.OperationType;
-import org.stellar.sdk.xdr.TransactionEnvelope;
-import org.stellar.sdk.xdr.XdrDataInputStream;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.lang.Nullable;
+import org.stellar.sdk.KeyPair;
+import org.stellar.sdk.StrKey;
+import org.stellar.sdk.Util;
 import ru.bitsouth.libs.springstellarauthstarter.configuration.StellarAuthConfigurationProperties;
-import shadow.com.google.common.io.BaseEncoding;
+import ru.bitsouth.libs.springstellarauthstarter.services.StellarAuthMetrics.Check;
+import ru.bitsouth.libs.springstellarauthstarter.services.xdr.ChallengeTemplate;
+import ru.bitsouth.libs.springstellarauthstarter.services.xdr.ChallengeTransaction;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
-@Validated
 @Slf4j
 @RequiredArgsConstructor
-@Service
 public class StellarAuthService {
+    private static final String CHALLENGE_ALREADY_USED = "Challenge transaction was already used.";
+
     private final StellarAuthConfigurationProperties properties;
-    private final Account stellarAccount;
-    private final KeyPair stellarServerKeyPair;
+    private final HomeDomains homeDomains;
     private final JwtTokenCreator jwtTokenCreator;
+    private final RefreshTokenService refreshTokenService;
+    private final ConsumedChallengeRegistry consumedChallengeRegistry;
+    private final ChallengeRateLimiter challengeRateLimiter;
+    private final NonceSource nonceSource;
+    private final AccountSignerCache accountSignerCache;
+    private final StellarAuthMetrics metrics;
+    private final StellarAuthEventLog eventLog;
+    @Qualifier("stellarAuthBatchExecutor")
+    private final StellarAuthExecutor stellarAuthBatchExecutor;
+    @Qualifier("stellarAuthCpuExecutor")
+    private final StellarAuthExecutor stellarAuthCpuExecutor;
+    private final ConcurrentMap<String, ChallengeTemplate> templates = new ConcurrentHashMap<>();
+
+    public String getChallenge(String publicKey, @Nullable String homeDomain) {
+        return getChallenge(publicKey, homeDomain, null);
+    }
 
-    public String getChallenge(String publicKey, String homeDomain) {
-        log.info("get challenge for account [{}] and home_domain [{}]", publicKey, homeDomain);
+    /**
+     * Rate limits are checked first, so a rejected request costs no signing; the account limit only after the
+     * account id was validated, so malformed ids take no limiter entries.
+     *
+     * @param homeDomain requested home domain, {@code null} for the default one
+     * @param clientAddress address the request came from, {@code null} to skip the per-address limit
+     */
+    public String getChallenge(String publicKey, @Nullable String homeDomain, @Nullable String clientAddress) {
+        log.debug("get challenge for account [{}] and home_domain [{}]", publicKey, homeDomain);
 
-        throwIfWrongHomeDomain(homeDomain);
+        check(Check.RATE_LIMIT, () -> throwIfAddressIsRateLimited(clientAddress, 1));
+        byte[] account = checked(Check.ACCOUNT, () -> decodeAccount(publicKey));
+        String accountId = StrKey.encodeStellarAccountId(account);
+        check(Check.RATE_LIMIT, () -> throwIfAccountIsRateLimited(accountId));
+        HomeDomain domain = checked(Check.HOME_DOMAIN, () -> getHomeDomain(homeDomain));
 
-        ManageDataOperation operation = getManageDataOperation(publicKey, homeDomain, getRandomBytes());
-        Transaction transaction = getTransaction(operation);
-        transaction.sign(stellarServerKeyPair);
-        String base64challenge = transaction.toEnvelopeXdrBase64();
+        accountSignerCache.prefetch(accountId);
+        long maxTime = System.currentTimeMillis() / 1000L + properties.getChallengeExpireIn();
+        ChallengeTemplate template = getTemplate(domain);
+        String base64challenge = stellarAuthCpuExecutor.call(
+                () -> template.sign(account, nonceSource.next(), maxTime)
+        );
 
-        log.info("challenge for account [{}] and home_domain [{}] was returned", publicKey, homeDomain);
-        log.debug("result: {}", base64challenge);
+        eventLog.challengeIssued(accountId, domain.getName());
         return base64challenge;
     }
 
-    private void throwIfWrongHomeDomain(String homeDomain) {
-        if (!homeDomain.endsWith(" auth")) {
-            throw new RuntimeException("Wrong home domain.");
-        }
+    /**
+     * Network passphrase challenges of the home domain are built for.
+     */
+    public String getNetworkPassphrase(@Nullable String homeDomain) {
+        return getHomeDomain(homeDomain).getNetworkPassphrase();
+    }
+
+    public List<BatchResult<String>> getChallenges(List<String> publicKeys, @Nullable String homeDomain) {
+        return getChallenges(publicKeys, homeDomain, null);
+    }
+
+    public List<BatchResult<String>> getChallenges(
+            List<String> publicKeys, @Nullable String homeDomain, @Nullable String clientAddress
+    ) {
+        log.debug("get {} challenges for home_domain [{}]", publicKeys.size(), homeDomain);
+
+        check(Check.BATCH_SIZE, () -> throwIfBatchIsTooLarge(publicKeys));
+        check(Check.RATE_LIMIT, () -> throwIfAddressIsRateLimited(clientAddress, publicKeys.size()));
+        HomeDomain domain = checked(Check.HOME_DOMAIN, () -> getHomeDomain(homeDomain));
+
+        ChallengeTemplate template = getTemplate(domain);
+        long maxTime = System.currentTimeMillis() / 1000L + properties.getChallengeExpireIn();
+        List<BatchResult<String>> challenges = inParallel(publicKeys, publicKey -> BatchResult.of(() -> {
+            byte[] account = checked(Check.ACCOUNT, () -> decodeAccount(publicKey));
+            String accountId = StrKey.encodeStellarAccountId(account);
+            check(Check.RATE_LIMIT, () -> throwIfAccountIsRateLimited(accountId));
+            accountSignerCache.prefetch(accountId);
+            return template.sign(account, nonceSource.next(), maxTime);
+        }));
+
+        eventLog.challengesIssued(publicKeys.size(), domain.getName());
+        return challenges;
     }
 
     public String getJwtToken(String transaction) {
-        log.info("get jwt token for transaction");
+        log.debug("get jwt token for transaction");
+
+        VerifiedChallenge challenge = verifyOnCpuExecutor(transaction);
+        check(Check.REPLAY, () -> throwIfChallengeIsAlreadyUsed(challenge));
+
+        return issue(challenge);
+    }
+
+    /**
+     * {@link #getJwtToken} plus a refresh token starting a session with the challenge hash as its id,
+     * unless refresh tokens are disabled or the session store is full.
+     */
+    public IssuedTokens getTokens(String transaction) {
+        log.debug("get tokens for transaction");
+
+        VerifiedChallenge challenge = verifyOnCpuExecutor(transaction);
+        check(Check.REPLAY, () -> throwIfChallengeIsAlreadyUsed(challenge));
+
+        String token = issue(challenge);
+        if (!properties.getRefresh().getEnabled()) {
+            return new IssuedTokens(token, null);
+        }
+        return new IssuedTokens(token, refreshTokenService.issue(challenge.account, Util.bytesToHex(challenge.hash)));
+    }
+
+    public List<BatchResult<String>> getJwtTokens(List<String> transactions) {
+        log.debug("get {} jwt tokens for transactions", transactions.size());
+
+        check(Check.BATCH_SIZE, () -> throwIfBatchIsTooLarge(transactions));
+
+        List<BatchResult<VerifiedChallenge>> verified = inParallel(transactions, x -> BatchResult.of(() -> verify(x)));
+        List<BatchResult<String>> tokens = inParallel(markConsumed(verified), x -> x.map(this::issue));
+
+        eventLog.tokensProcessed(transactions.size());
+        return tokens;
+    }
+
+    private VerifiedChallenge verify(String transaction) {
+        ServerSignedChallenge challenge = verifyServerSignature(transaction);
+        return verifyClientSignatures(challenge, getSigners(challenge));
+    }
+
+    /**
+     * {@link #verify} with the signature checks on the CPU executor and the signer lookup, which may block,
+     * on the calling thread.
+     */
+    private VerifiedChallenge verifyOnCpuExecutor(String transaction) {
+        ServerSignedChallenge challenge = stellarAuthCpuExecutor.call(() -> verifyServerSignature(transaction));
+        AccountSigners signers = getSigners(challenge);
+        return stellarAuthCpuExecutor.call(() -> verifyClientSignatures(challenge, signers));
+    }
+
+    private ServerSignedChallenge verifyServerSignature(String transaction) {
+        ChallengeTransaction tx = getTx(transaction);
+        check(Check.MANAGE_DATA, () -> throwIfThereIsNoManageData(tx));
+        HomeDomain domain = checked(Check.HOME_DOMAIN, () -> getHomeDomain(tx));
+        long hashStart = System.nanoTime();
+        byte[] hash = tx.hash(domain.getNetworkId());
+        metrics.recordHash(System.nanoTime() - hashStart);
+
+        KeyPair serverKeyPair = checked(Check.SOURCE_ACCOUNT, () -> getServerKeyPair(tx, domain));
+        check(Check.SERVER_SIGNATURE, () -> throwIfServerSignatureIsWrong(tx, hash, serverKeyPair));
+        check(Check.TIME_BOUNDS, () -> throwIfChallengeIsExpired(tx));
+        check(Check.OPERATION_SOURCE, () -> throwIfChallengeHasNoSourceAccount(tx));
+        return new ServerSignedChallenge(tx, hash, tx.getOperationSourceAccount(), serverKeyPair);
+    }
+
+    private AccountSigners getSigners(ServerSignedChallenge challenge) {
+        return checked(Check.SIGNERS, () -> accountSignerCache.get(challenge.account));
+    }
+
+    private VerifiedChallenge verifyClientSignatures(ServerSignedChallenge challenge, AccountSigners signers) {
+        check(Check.CLIENT_SIGNATURE, () -> throwIfClientSignatureIsWrong(challenge, signers));
+        return new VerifiedChallenge(
+                StrKey.encodeStellarAccountId(challenge.account), challenge.hash, challenge.tx.getMaxTime()
+        );
+    }
+
+    private String issue(VerifiedChallenge challenge) {
+        return jwtTokenCreator.issue(challenge.account, Util.bytesToHex(challenge.hash));
+    }
+
+    private List<BatchResult<VerifiedChallenge>> markConsumed(List<BatchResult<VerifiedChallenge>> verified) {
+        List<VerifiedChallenge> challenges = verified.stream()
+                .filter(BatchResult::isSuccess)
+                .map(BatchResult::getValue)
+                .collect(Collectors.toList());
+        byte[][] hashes = new byte[challenges.size()][];
+        long[] expiresAt = new long[challenges.size()];
+        for (int i = 0; i < challenges.size(); i++) {
+            hashes[i] = challenges.get(i).hash;
+            expiresAt[i] = challenges.get(i).maxTime;
+        }
+
+        boolean[] fresh;
+        try {
+            fresh = consumedChallengeRegistry.markConsumed(hashes, expiresAt);
+        } catch (RuntimeException e) {
+            log.error("Can't mark challenges as consumed", e);
+            return verified.stream()
+                    .map(x -> x.isSuccess() ? BatchResult.<VerifiedChallenge>failure(e.getMessage()) : x)
+                    .collect(Collectors.toList());
+        }
+
+        List<BatchResult<VerifiedChallenge>> result = new ArrayList<>(verified.size());
+        int i = 0;
+        for (BatchResult<VerifiedChallenge> x : verified) {
+            if (x.isSuccess() && !fresh[i++]) {
+                metrics.recordFailure(Check.REPLAY);
+                eventLog.challengeRejected(Check.REPLAY, CHALLENGE_ALREADY_USED);
+                result.add(BatchResult.failure(CHALLENGE_ALREADY_USED));
+            } else {
+                result.add(x);
+            }
+        }
+        return result;
+    }
 
-        Transaction tx = getTx(transaction);
+    private <T, R> List<BatchResult<R>> inParallel(List<T> items, Function<T, BatchResult<R>> action) {
+        List<CompletableFuture<BatchResult<R>>> futures = new ArrayList<>(items.size());
+        for (T item : items) {
+            futures.add(stellarAuthBatchExecutor.supplyAsync(() -> action.apply(item)));
+        }
+        List<BatchResult<R>> results = new ArrayList<>(items.size());
+        for (CompletableFuture<BatchResult<R>> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    private void check(Check check, Runnable action) {
+        checked(check, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private <T> T checked(Check check, Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } catch (RuntimeException e) {
+            metrics.recordFailure(check);
+            eventLog.challengeRejected(check, e.getMessage());
+            throw e;
+        } finally {
+            metrics.recordCheck(check, System.nanoTime() - start);
+        }
+    }
+
+    private void throwIfAddressIsRateLimited(@Nullable String clientAddress, int permits) {
+        if (clientAddress != null && !challengeRateLimiter.tryAcquireAddress(clientAddress, permits)) {
+            throw new RateLimitExceededException("Too many challenge requests from this address.");
+        }
+    }
 
-        Operation operation = tx.getOperations()[0];
-        byte[] hash = tx.hash();
-        List<DecoratedSignature> signatures = tx.getSignatures();
+    private void throwIfAccountIsRateLimited(String publicKey) {
+        if (!challengeRateLimiter.tryAcquireAccount(publicKey, 1)) {
+            throw new RateLimitExceededException("Too many challenge requests for this account.");
+        }
+    }
 
-        throwIfInvalidSource(tx);
-        throwIfServerSignatureIsWrong(hash, signatures);
-        throwIfChallengeIsExpired(tx);
-        throwIfThereIsNoManageData(operation);
-        throwIfChallengeHasNoSourceAccount(operation);
-        throwIfClientSignatureIsWrong(operation, hash, signatures);
+    private void throwIfBatchIsTooLarge(List<String> items) {
+        if (items.size() > properties.getBatch().getMaxSize()) {
+            throw new BatchTooLargeException("Batch is too large.");
+        }
+    }
 
-        return jwtTokenCreator.issue(operation.getSourceAccount(), Util.bytesToHex(hash));
+    private void throwIfChallengeIsAlreadyUsed(VerifiedChallenge challenge) {
+        if (!consumedChallengeRegistry.markConsumed(challenge.hash, challenge.maxTime)) {
+            throw new ChallengeAlreadyUsedException(CHALLENGE_ALREADY_USED);
+        }
     }
 
-    private void throwIfClientSignatureIsWrong(Operation operation, byte[] hash, List<DecoratedSignature> signatures) {
-        KeyPair clientKeyPair = KeyPair.fromAccountId(operation.getSourceAccount());
-        if (signatures.stream().allMatch(x -> clientKeyPair.verify(hash, x.getSignature().getSignature()))) {
-            throw new RuntimeException("Client signature is missing or invalid.");
+    private void throwIfClientSignatureIsWrong(ServerSignedChallenge challenge, AccountSigners signers) {
+        int weight = signers.getSignedWeight(challenge.tx, challenge.hash, challenge.serverKeyPair.getPublicKey());
+        if (!signers.isMetBy(weight)) {
+            throw new RuntimeException("Client signatures are missing or below the account threshold.");
         }
     }
 
-    private void throwIfChallengeHasNoSourceAccount(Operation operation) {
-        if (!StringUtils.hasText(operation.getSourceAccount())) {
+    private void throwIfChallengeHasNoSourceAccount(ChallengeTransaction tx) {
+        if (!tx.hasOperationSourceAccount()) {
             throw new RuntimeException("Challenge has no source account.");
         }
     }
 
-    private void throwIfThereIsNoManageData(Operation operation) {
-        if (operation.toXdr().getBody().getDiscriminant() != OperationType.MANAGE_DATA) {
+    private void throwIfThereIsNoManageData(ChallengeTransaction tx) {
+        if (tx.getOperationCount() == 0) {
             throw new RuntimeException("Challenge has no manageData operation.");
         }
     }
 
-    private void throwIfChallengeIsExpired(Transaction tx) {
+    private void throwIfChallengeIsExpired(ChallengeTransaction tx) {
         long now = System.currentTimeMillis() / 1000L;
-        if (
-                !(
-                        Objects.nonNull(tx.getTimeBounds()) &&
-                                now > tx.getTimeBounds().getMinTime() &&
-                                now < tx.getTimeBounds().getMaxTime()
-                )
-        ) {
+        if (!(tx.hasTimeBounds() && now > tx.getMinTime() && now < tx.getMaxTime())) {
             throw new RuntimeException("Challenge transaction expired.");
         }
     }
 
-    private void throwIfServerSignatureIsWrong(byte[] hash, List<DecoratedSignature> signatures) {
-        if (signatures.stream().anyMatch(x -> !stellarServerKeyPair.verify(hash, x.getSignature().getSignature()))) {
+    private void throwIfServerSignatureIsWrong(ChallengeTransaction tx, byte[] hash, KeyPair serverKeyPair) {
+        if (!hasValidSignature(tx, hash, serverKeyPair)) {
             throw new RuntimeException("Server signature is missing or invalid.");
         }
     }
 
-    private void throwIfInvalidSource(Transaction tx) {
-        if (!tx.getSourceAccount().equals(stellarAccount.getAccountId())) {
-            throw new RuntimeException("Invalid source account.");
+    private static byte[] decodeAccount(String publicKey) {
+        try {
+            return StrKey.decodeStellarAccountId(publicKey);
+        } catch (RuntimeException e) {
+            throw new InvalidAccountException("Account is not a valid Stellar account id.");
         }
     }
 
-    private Transaction getTx(String transaction) {
-        log.info("decode tx");
-        log.debug("tx string: {}", transaction);
+    private HomeDomain getHomeDomain(@Nullable String homeDomain) {
+        HomeDomain domain = homeDomains.get(homeDomain);
+        if (domain == null) {
+            throw new UnknownHomeDomainException("Wrong home domain.");
+        }
+        return domain;
+    }
 
-        BaseEncoding base64Encoding = BaseEncoding.base64();
-        byte[] decoded = base64Encoding.decode(transaction);
-        XdrDataInputStream xdrDataInputStream =
-                new XdrDataInputStream(new ByteArrayInputStream(decoded));
-        TransactionEnvelope envelope;
-        try {
-            envelope = TransactionEnvelope.decode(xdrDataInputStream);
-        } catch (IOException e) {
-            log.error("Can't decode tx", e);
-            throw new RuntimeException(e);
+    private HomeDomain getHomeDomain(ChallengeTransaction tx) {
+        HomeDomain domain = homeDomains.get(tx);
+        if (domain == null) {
+            throw new UnknownHomeDomainException("Challenge is for an unknown home domain.");
         }
-        log.debug("envelope: {}", envelope);
+        return domain;
+    }
 
-        Transaction tx = (Transaction) Transaction.fromEnvelopeXdr(envelope, Network.PUBLIC);
-        log.info("tx was decoded");
-        log.debug("transaction: {}", transaction);
-        return tx;
+    private KeyPair getServerKeyPair(ChallengeTransaction tx, HomeDomain domain) {
+        for (KeyPair keyPair : domain.getKeyRing().getVerificationKeys()) {
+            if (tx.isSourceAccount(keyPair.getPublicKey())) {
+                return keyPair;
+            }
+        }
+        throw new RuntimeException("Invalid source account.");
     }
 
-    private Transaction getTransaction(ManageDataOperation operation) {
-        Transaction transaction = new Transaction.Builder(
-                stellarAccount, Network.PUBLIC
-        )
-                .addOperation(operation)
+    private boolean hasValidSignature(ChallengeTransaction tx, byte[] hash, KeyPair keyPair) {
+        int hint = ChallengeTransaction.signatureHint(keyPair.getPublicKey());
+        for (int i = 0; i < tx.getSignatureCount(); i++) {
+            if (tx.getSignatureHint(i) == hint && keyPair.verify(hash, tx.getSignature(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-                .addTimeBounds(TimeBounds.expiresAfter(properties.getChallengeExpireIn()))
-                .setBaseFee(properties.getBaseFee())
-                .build();
-        log.debug("transaction: {}", transaction);
-        return transaction;
+    private ChallengeTransaction getTx(String transaction) {
+        long start = System.nanoTime();
+        ChallengeTransaction tx;
+        try {
+            tx = ChallengeTransaction.fromEnvelopeXdrBase64(transaction);
+        } catch (RuntimeException e) {
+            metrics.recordFailure(Check.ENVELOPE);
+            eventLog.challengeRejected(Check.ENVELOPE, e.getMessage());
+            throw e;
+        }
+        metrics.recordDecode(System.nanoTime() - start);
+        return tx;
     }
 
-    private ManageDataOperation getManageDataOperation(String publicKey, String name, byte[] value) {
-        ManageDataOperation manageDataOperation = new ManageDataOperation.Builder(name, value)
-                .setSourceAccount(publicKey)
-                .build();
-        log.debug("operation: {}", manageDataOperation);
-        return manageDataOperation;
+    private ChallengeTemplate getTemplate(HomeDomain domain) {
+        KeyPair signer = domain.getKeyRing().getActiveKey();
+        ChallengeTemplate template = templates.get(domain.getName());
+        if (template != null && template.getSigner() == signer) {
+            return template;
+        }
+        ChallengeTemplate created = new ChallengeTemplate(
+                signer, domain.getNetworkId(), properties.getInvalidSequence(), properties.getBaseFee(),
+                domain.getDataName(), metrics::recordChallenge
+        );
+        templates.put(domain.getName(), created);
+        return created;
     }
 
-    private byte[] getRandomBytes() {
-        byte[] byteArray = new byte[32];
-        ThreadLocalRandom.current().nextBytes(byteArray);
-        return byteArray;
+    @RequiredArgsConstructor
+    private static class ServerSignedChallenge {
+        private final ChallengeTransaction tx;
+        private final byte[] hash;
+        private final byte[] account;
+        private final KeyPair serverKeyPair;
     }
 
+    @RequiredArgsConstructor
+    private static class VerifiedChallenge {
+        private final String account;
+        private final byte[] hash;
+        private final long maxTime;
+    }
 }
@@ -0,0 +1,98 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import lombok.Getter;
+import org.springframework.http.HttpHeaders;
+import org.stellar.sdk.KeyPair;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A rendered stellar.toml with its gzip encoding and validators, built once per key rotation or configuration
+ * change. The arrays are shared by every response and must not be modified.
+ */
+@Getter
+public class StellarToml {
+    private final byte[] body;
+    private final byte[] gzipBody;
+    private final String etag;
+    private final String gzipEtag;
+    /**
+     * Epoch millis truncated to seconds, as {@code Last-Modified} has no finer precision.
+     */
+    private final long lastModified;
+    private final KeyPair signingKey;
+
+    StellarToml(byte[] body, long lastModified, KeyPair signingKey) {
+        this.body = body;
+        this.gzipBody = gzip(body);
+        String digest = digest(body);
+        this.etag = "\"" + digest + "\"";
+        this.gzipEtag = "\"" + digest + "-gzip\"";
+        this.lastModified = lastModified / 1000L * 1000L;
+        this.signingKey = signingKey;
+    }
+
+    /**
+     * {@code If-None-Match} wins over {@code If-Modified-Since}, either encoding's tag matches.
+     */
+    public boolean isNotModified(HttpHeaders requestHeaders) {
+        List<String> ifNoneMatch = requestHeaders.getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+            for (String tag : ifNoneMatch) {
+                String strong = tag.startsWith("W/") ? tag.substring(2) : tag;
+                if (strong.equals("*") || strong.equals(etag) || strong.equals(gzipEtag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince = requestHeaders.getIfModifiedSince();
+        return ifModifiedSince >= 0L && lastModified <= ifModifiedSince;
+    }
+
+    public boolean acceptsGzip(HttpHeaders requestHeaders) {
+        List<String> acceptEncoding = requestHeaders.get(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String value : acceptEncoding) {
+            for (String coding : value.split(",")) {
+                String[] parts = coding.trim().split(";");
+                if (parts[0].trim().equalsIgnoreCase("gzip")
+                        && !(parts.length > 1 && parts[1].trim().matches("q=0(\\.0*)?"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new RuntimeException("Can't compress stellar.toml.", e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String digest(byte[] body) {
+        byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256").digest(body);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 is not available.", e);
+        }
+        StringBuilder hex = new StringBuilder(32);
+        for (int i = 0; i < 16; i++) {
+            hex.append(String.format("%02x", hash[i]));
+        }
+        return hex.toString();
+    }
+}
@@ -1,26 +1,159 @@
 package ru.bitsouth.libs.springstellarauthstarter.services;
 
-
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.stereotype.Service;
-import org.springframework.validation.annotation.Validated;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.event.SmartApplicationListener;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
 import org.stellar.sdk.KeyPair;
 import ru.bitsouth.libs.springstellarauthstarter.configuration.StellarAuthConfigurationProperties;
 
-import javax.validation.constraints.NotBlank;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
-@Validated
+/**
+ * Renders stellar.toml once per home domain and serves the same bytes until {@link #invalidate} is called: on every
+ * reload of a domain's key ring and on Spring Cloud's {@code EnvironmentChangeEvent}, published after the
+ * properties were rebound at runtime.
+ */
 @Slf4j
-@RequiredArgsConstructor
-@Service
-public class StellarTomlService {
+public class StellarTomlService implements SmartApplicationListener {
+    private static final String ENVIRONMENT_CHANGE_EVENT =
+            "org.springframework.cloud.context.environment.EnvironmentChangeEvent";
+
     private final StellarAuthConfigurationProperties properties;
-    private final KeyPair stellarServerKeyPair;
+    private final HomeDomains homeDomains;
+
+    public StellarTomlService(StellarAuthConfigurationProperties properties, HomeDomains homeDomains) {
+        this.properties = properties;
+        this.homeDomains = homeDomains;
+        for (HomeDomain domain : homeDomains.getAll()) {
+            domain.getKeyRing().addListener(ring -> invalidate());
+        }
+    }
+
+    /**
+     * @param host host the request was sent to; unknown hosts get the default home domain's document
+     */
+    public StellarToml getDocument(@Nullable String host) {
+        HomeDomain domain = homeDomains.get(host);
+        if (domain == null) {
+            domain = homeDomains.getDefault();
+        }
+        KeyPair signingKey = domain.getKeyRing().getActiveKey();
+        StellarToml current = domain.getToml();
+        if (current != null && current.getSigningKey() == signingKey) {
+            return current;
+        }
+        StellarToml rendered = new StellarToml(
+                render(domain, signingKey).getBytes(StandardCharsets.UTF_8), System.currentTimeMillis(), signingKey
+        );
+        domain.setToml(rendered);
+        log.debug("stellar.toml of [{}] was rendered for [{}]", domain.getName(), signingKey.getAccountId());
+        return rendered;
+    }
+
+    public String getToml(@Nullable String host) {
+        return new String(getDocument(host).getBody(), StandardCharsets.UTF_8);
+    }
+
+    public void invalidate() {
+        for (HomeDomain domain : homeDomains.getAll()) {
+            domain.setToml(null);
+        }
+    }
+
+    /**
+     * Matched by name, as Spring Cloud is an optional dependency.
+     */
+    @Override
+    public boolean supportsEventType(Class<? extends ApplicationEvent> eventType) {
+        return ENVIRONMENT_CHANGE_EVENT.equals(eventType.getName());
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        invalidate();
+        log.debug("stellar.toml was invalidated after the environment changed");
+    }
+
+    private String render(HomeDomain domain, KeyPair signingKey) {
+        StellarAuthConfigurationProperties.Toml toml = properties.getToml();
+        StringBuilder out = new StringBuilder(512);
+        field(out, "VERSION", "2.0.0");
+        field(out, "NETWORK_PASSPHRASE", domain.getNetworkPassphrase());
+        field(out, "SIGNING_KEY", signingKey.getAccountId());
+        field(out, "WEB_AUTH_ENDPOINT", properties.getEndpoint());
+        field(out, "FEDERATION_SERVER", toml.getFederationServer());
+        field(out, "TRANSFER_SERVER", toml.getTransferServer());
+        field(out, "TRANSFER_SERVER_SEP0024", toml.getTransferServerSep0024());
+        field(out, "KYC_SERVER", toml.getKycServer());
+        field(out, "HORIZON_URL", toml.getHorizonUrl());
+        field(out, "URI_REQUEST_SIGNING_KEY", toml.getUriRequestSigningKey());
+        if (!toml.getAccounts().isEmpty()) {
+            out.append("ACCOUNTS=").append(array(toml.getAccounts())).append('\n');
+        }
+
+        StellarAuthConfigurationProperties.Toml.Documentation documentation = toml.getDocumentation();
+        StringBuilder table = new StringBuilder();
+        field(table, "ORG_NAME", documentation.getOrgName());
+        field(table, "ORG_URL", documentation.getOrgUrl());
+        field(table, "ORG_LOGO", documentation.getOrgLogo());
+        field(table, "ORG_DESCRIPTION", documentation.getOrgDescription());
+        field(table, "ORG_OFFICIAL_EMAIL", documentation.getOrgOfficialEmail());
+        field(table, "ORG_SUPPORT_EMAIL", documentation.getOrgSupportEmail());
+        if (table.length() > 0) {
+            out.append("\n[DOCUMENTATION]\n").append(table);
+        }
+
+        for (StellarAuthConfigurationProperties.Toml.Currency currency : toml.getCurrencies()) {
+            out.append("\n[[CURRENCIES]]\n");
+            field(out, "code", currency.getCode());
+            field(out, "issuer", currency.getIssuer());
+            field(out, "status", currency.getStatus());
+            field(out, "display_decimals", currency.getDisplayDecimals());
+            field(out, "name", currency.getName());
+            field(out, "desc", currency.getDesc());
+            field(out, "image", currency.getImage());
+            field(out, "is_asset_anchored", currency.getIsAssetAnchored());
+            field(out, "anchor_asset_type", currency.getAnchorAssetType());
+            field(out, "anchor_asset", currency.getAnchorAsset());
+        }
+        return out.toString();
+    }
+
+    private static void field(StringBuilder out, String name, String value) {
+        if (StringUtils.hasText(value)) {
+            out.append(name).append('=').append(string(value)).append('\n');
+        }
+    }
+
+    private static void field(StringBuilder out, String name, Object value) {
+        if (value != null) {
+            out.append(name).append('=').append(value).append('\n');
+        }
+    }
+
+    private static String array(List<String> values) {
+        StringBuilder out = new StringBuilder("[");
+        for (int i = 0; i < values.size(); i++) {
+            out.append(i == 0 ? "" : ", ").append(string(values.get(i)));
+        }
+        return out.append(']').toString();
+    }
 
-    public @NotBlank String getToml() {
-        return "" +
-                "SIGNING_KEY=\"" + stellarServerKeyPair.getAccountId() + "\"\n" +
-                "WEB_AUTH_ENDPOINT=\"" + properties.getEndpoint() + "\"";
+    private static String string(String value) {
+        StringBuilder out = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        return out.append('"').toString();
     }
 }
@@ -0,0 +1,131 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only revocation log shared by the nodes, e.g. on a common volume or fed by a stream consumer.
+ * <p>
+ * Each node tails the file from its last offset and applies complete lines to its {@link TokenRevocationList},
+ * so an update costs every node one small read. Lines are {@code token <jti> <expiresAt>} and
+ * {@code subject <sub> <revokedAt> <expiresAt>} with epoch seconds; unknown lines are skipped. A file that
+ * shrank was rotated and is read again from the start.
+ */
+@Slf4j
+public class TokenRevocationFile {
+    private final TokenRevocationList revocationList;
+    private final Path file;
+    private final long intervalSeconds;
+    private final ScheduledExecutorService scheduler;
+    private long offset;
+    private byte[] pending = new byte[0];
+
+    public TokenRevocationFile(TokenRevocationList revocationList, Path file, long intervalSeconds) {
+        this.revocationList = revocationList;
+        this.file = file;
+        this.intervalSeconds = intervalSeconds;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("stellar-auth-revocation-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    public void start() {
+        tail();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                tail();
+            } catch (RuntimeException e) {
+                log.error("Can't read revocation file [{}]", file, e);
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    public synchronized void appendToken(String tokenId, long expiresAt) {
+        append("token " + tokenId + " " + expiresAt + "\n");
+    }
+
+    public synchronized void appendSubject(String subject, long revokedAt, long expiresAt) {
+        append("subject " + subject + " " + revokedAt + " " + expiresAt + "\n");
+    }
+
+    public synchronized void tail() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < offset) {
+                log.info("revocation file [{}] was rotated", file);
+                offset = 0;
+                pending = new byte[0];
+            }
+            if (size == offset) {
+                return;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(
+                    pending.length + (int) Math.min(size - offset, Integer.MAX_VALUE - pending.length)
+            );
+            buffer.put(pending);
+            channel.position(offset);
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                // read up to the size seen above
+            }
+            offset = channel.position();
+            apply(buffer.array(), buffer.position());
+        } catch (IOException e) {
+            throw new RuntimeException("Can't read revocation file.", e);
+        }
+    }
+
+    private void apply(byte[] bytes, int length) {
+        int lineStart = 0;
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] == '\n') {
+                applyLine(new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8).trim());
+                lineStart = i + 1;
+            }
+        }
+        byte[] rest = new byte[length - lineStart];
+        System.arraycopy(bytes, lineStart, rest, 0, rest.length);
+        pending = rest;
+    }
+
+    private void applyLine(String line) {
+        String[] fields = line.split(" ");
+        try {
+            if (fields.length == 3 && "token".equals(fields[0])) {
+                revocationList.revokeToken(fields[1], Long.parseLong(fields[2]));
+            } else if (fields.length == 4 && "subject".equals(fields[0])) {
+                revocationList.revokeSubject(fields[1], Long.parseLong(fields[2]), Long.parseLong(fields[3]));
+            } else if (!line.isEmpty()) {
+                log.warn("unknown revocation line was skipped: {}", line);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("malformed revocation line was skipped: {}", line);
+        }
+    }
+
+    private void append(String line) {
+        try {
+            Files.write(file, line.getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new RuntimeException("Can't write revocation file.", e);
+        }
+    }
+}
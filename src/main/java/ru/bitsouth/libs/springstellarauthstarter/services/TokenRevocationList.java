@@ -0,0 +1,124 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Revoked token ids ({@code jti}) and subjects. Revoking a subject revokes its tokens issued up to that moment.
+ * <p>
+ * Lookups go through a Bloom filter first, so a token that is not revoked costs two in-place string hashes and
+ * the exact maps are read only on a filter hit. An empty list costs a volatile read. Writes are serialized;
+ * expired entries are dropped by {@link #sweep} every {@code sweepIntervalSeconds}, which rebuilds the filter.
+ */
+@Slf4j
+public class TokenRevocationList {
+    private static final long TOKEN_SEED = 0x746f6b656eL;
+    private static final long SUBJECT_SEED = 0x7375626aL;
+
+    private final ConcurrentMap<String, Long> tokens = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, SubjectRevocation> subjects = new ConcurrentHashMap<>();
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+    private final long sweepIntervalSeconds;
+    private final ScheduledExecutorService scheduler;
+    private volatile BloomFilter filter;
+    private volatile boolean empty = true;
+
+    public TokenRevocationList(int expectedEntries, double falsePositiveRate, long sweepIntervalSeconds) {
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.sweepIntervalSeconds = sweepIntervalSeconds;
+        this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("stellar-auth-revocation-sweep-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                sweep();
+            } catch (RuntimeException e) {
+                log.error("Can't sweep revocation list", e);
+            }
+        }, sweepIntervalSeconds, sweepIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    public boolean isRevoked(@Nullable String tokenId, @Nullable String subject, @Nullable Date issuedAt) {
+        if (empty) {
+            return false;
+        }
+        BloomFilter current = filter;
+        if (tokenId != null && current.mightContain(TOKEN_SEED, tokenId) && tokens.containsKey(tokenId)) {
+            return true;
+        }
+        if (subject != null && current.mightContain(SUBJECT_SEED, subject)) {
+            SubjectRevocation revocation = subjects.get(subject);
+            return revocation != null && (issuedAt == null || issuedAt.getTime() / 1000L <= revocation.revokedAt);
+        }
+        return false;
+    }
+
+    /**
+     * @param expiresAt epoch seconds after which no token with this id can be valid any more
+     */
+    public synchronized void revokeToken(String tokenId, long expiresAt) {
+        tokens.merge(tokenId, expiresAt, Math::max);
+        filter.add(TOKEN_SEED, tokenId);
+        empty = false;
+    }
+
+    /**
+     * @param revokedAt epoch seconds; tokens issued up to it are revoked
+     * @param expiresAt epoch seconds after which every token issued up to {@code revokedAt} has expired
+     */
+    public synchronized void revokeSubject(String subject, long revokedAt, long expiresAt) {
+        subjects.merge(subject, new SubjectRevocation(revokedAt, expiresAt),
+                (x, y) -> x.revokedAt >= y.revokedAt ? x : y);
+        filter.add(SUBJECT_SEED, subject);
+        empty = false;
+    }
+
+    public synchronized void sweep() {
+        long now = System.currentTimeMillis() / 1000L;
+        boolean tokensRemoved = tokens.values().removeIf(x -> x <= now);
+        boolean subjectsRemoved = subjects.values().removeIf(x -> x.expiresAt <= now);
+        int size = tokens.size() + subjects.size();
+        if (!tokensRemoved && !subjectsRemoved && size <= expectedEntries) {
+            return;
+        }
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, size * 2), falsePositiveRate);
+        for (String tokenId : tokens.keySet()) {
+            rebuilt.add(TOKEN_SEED, tokenId);
+        }
+        for (Map.Entry<String, SubjectRevocation> entry : subjects.entrySet()) {
+            rebuilt.add(SUBJECT_SEED, entry.getKey());
+        }
+        filter = rebuilt;
+        empty = size == 0;
+    }
+
+    public int size() {
+        return tokens.size() + subjects.size();
+    }
+
+    @RequiredArgsConstructor
+    private static class SubjectRevocation {
+        private final long revokedAt;
+        private final long expiresAt;
+    }
+}
@@ -0,0 +1,49 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import ru.bitsouth.libs.springstellarauthstarter.configuration.StellarAuthConfigurationProperties;
+
+/**
+ * Revokes tokens before they expire. A token id is also the id of its refresh session, so revoking it ends
+ * the session too. With a revocation file configured the revocation is appended to it for the other nodes.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class TokenRevocationService {
+    private final StellarAuthConfigurationProperties properties;
+    private final TokenRevocationList tokenRevocationList;
+    private final RefreshTokenStore refreshTokenStore;
+    private final ObjectProvider<TokenRevocationFile> tokenRevocationFile;
+
+    public void revokeToken(String tokenId) {
+        long expiresAt = System.currentTimeMillis() / 1000L + getRetention();
+        tokenRevocationList.revokeToken(tokenId, expiresAt);
+        refreshTokenStore.revoke(tokenId);
+        tokenRevocationFile.ifAvailable(x -> x.appendToken(tokenId, expiresAt));
+        log.info("token [{}] was revoked", tokenId);
+    }
+
+    /**
+     * Revokes every token of the subject issued up to now; tokens from later logins stay valid.
+     */
+    public void revokeSubject(String subject) {
+        long now = System.currentTimeMillis() / 1000L;
+        long expiresAt = now + getRetention();
+        tokenRevocationList.revokeSubject(subject, now, expiresAt);
+        tokenRevocationFile.ifAvailable(x -> x.appendSubject(subject, now, expiresAt));
+        log.info("tokens of [{}] were revoked", subject);
+    }
+
+    /**
+     * Refreshed tokens keep the session's id, so an id stays revoked as long as its session may live.
+     */
+    private long getRetention() {
+        long retention = properties.getJwtTokenLifetime();
+        if (properties.getRefresh().getEnabled()) {
+            retention = Math.max(retention, properties.getRefresh().getLifetime());
+        }
+        return retention;
+    }
+}
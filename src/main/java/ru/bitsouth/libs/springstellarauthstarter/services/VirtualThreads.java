@@ -0,0 +1,42 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Virtual threads looked up reflectively, so the starter keeps building for Java 8 and uses them only when it runs
+ * on JDK 21 or later.
+ */
+public final class VirtualThreads {
+    private static final Method NEW_EXECUTOR = findNewExecutor();
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isAvailable() {
+        return NEW_EXECUTOR != null;
+    }
+
+    /**
+     * An executor starting one virtual thread per task.
+     */
+    public static ExecutorService newExecutor() {
+        if (NEW_EXECUTOR == null) {
+            throw new RuntimeException("Virtual threads need JDK 21 or later.");
+        }
+        try {
+            return (ExecutorService) NEW_EXECUTOR.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Can't create a virtual thread executor.", e);
+        }
+    }
+
+    private static Method findNewExecutor() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package ru.bitsouth.libs.springstellarauthstarter.services.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+import java.math.BigInteger;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ES256 (ECDSA over P-256) key, signed and verified through JJWT.
+ */
+public class EcJwtSigningKey implements JwtSigningKey {
+    private static final int COORDINATE_LENGTH = 32;
+
+    private final ECPrivateKey privateKey;
+    private final ECPublicKey publicKey;
+    private final String keyId;
+    private final Map<String, Object> jwk;
+
+    public EcJwtSigningKey(ECPrivateKey privateKey, ECPublicKey publicKey) {
+        this.privateKey = privateKey;
+        this.publicKey = publicKey;
+
+        Map<String, String> members = new LinkedHashMap<>();
+        members.put("kty", "EC");
+        members.put("crv", "P-256");
+        members.put("x", Jwks.base64Url(coordinate(publicKey.getW().getAffineX())));
+        members.put("y", Jwks.base64Url(coordinate(publicKey.getW().getAffineY())));
+        this.keyId = Jwks.thumbprint(members);
+
+        Map<String, Object> jwk = new LinkedHashMap<>(members);
+        jwk.put("use", "sig");
+        jwk.put("alg", getAlgorithm());
+        jwk.put("kid", keyId);
+        this.jwk = Collections.unmodifiableMap(jwk);
+    }
+
+    @Override
+    public String getAlgorithm() {
+        return SignatureAlgorithm.ES256.getValue();
+    }
+
+    @Override
+    public String getKeyId() {
+        return keyId;
+    }
+
+    @Override
+    public String sign(JwtBuilder jwtBuilder) {
+        return jwtBuilder
+                .setHeaderParam(JwsHeader.KEY_ID, keyId)
+                .signWith(SignatureAlgorithm.ES256, privateKey)
+                .compact();
+    }
+
+    @Override
+    public Claims verify(String token) {
+        return Jwts.parser()
+                .setSigningKey(publicKey)
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    @Override
+    public Map<String, Object> toJwk() {
+        return jwk;
+    }
+
+    private static byte[] coordinate(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] result = new byte[COORDINATE_LENGTH];
+        int length = Math.min(bytes.length, COORDINATE_LENGTH);
+        System.arraycopy(bytes, bytes.length - length, result, COORDINATE_LENGTH - length, length);
+        return result;
+    }
+}
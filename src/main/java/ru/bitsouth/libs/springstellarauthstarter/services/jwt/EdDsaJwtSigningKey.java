@@ -0,0 +1,96 @@
+package ru.bitsouth.libs.springstellarauthstarter.services.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureException;
+import org.stellar.sdk.KeyPair;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * EdDSA (Ed25519) key backed by a Stellar {@link KeyPair}.
+ * <p>
+ * JJWT 0.9 has no EdDSA support, so claims are still built and parsed by JJWT as an unsecured JWT,
+ * while the JWS header is a constant and the signature is computed with the Stellar key.
+ * Header parameters set by enrichers are therefore not carried over.
+ */
+public class EdDsaJwtSigningKey implements JwtSigningKey {
+    private static final String ALGORITHM = "EdDSA";
+    private static final String UNSECURED_HEADER =
+            Jwks.base64Url("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8));
+
+    private final KeyPair keyPair;
+    private final String keyId;
+    private final String header;
+    private final Map<String, Object> jwk;
+
+    public EdDsaJwtSigningKey(KeyPair keyPair) {
+        this.keyPair = keyPair;
+
+        Map<String, String> members = new LinkedHashMap<>();
+        members.put("kty", "OKP");
+        members.put("crv", "Ed25519");
+        members.put("x", Jwks.base64Url(keyPair.getPublicKey()));
+        this.keyId = Jwks.thumbprint(members);
+        this.header = Jwks.base64Url(
+                ("{\"alg\":\"" + ALGORITHM + "\",\"kid\":\"" + keyId + "\"}").getBytes(StandardCharsets.UTF_8)
+        );
+
+        Map<String, Object> jwk = new LinkedHashMap<>(members);
+        jwk.put("use", "sig");
+        jwk.put("alg", ALGORITHM);
+        jwk.put("kid", keyId);
+        this.jwk = Collections.unmodifiableMap(jwk);
+    }
+
+    @Override
+    public String getAlgorithm() {
+        return ALGORITHM;
+    }
+
+    @Override
+    public String getKeyId() {
+        return keyId;
+    }
+
+    @Override
+    public String sign(JwtBuilder jwtBuilder) {
+        String unsecured = jwtBuilder.compact();
+        String payload = unsecured.substring(unsecured.indexOf('.') + 1, unsecured.length() - 1);
+        String signingInput = header + '.' + payload;
+        byte[] signature = keyPair.sign(signingInput.getBytes(StandardCharsets.US_ASCII));
+        return signingInput + '.' + Jwks.base64Url(signature);
+    }
+
+    @Override
+    public Claims verify(String token) {
+        int payloadStart = token.indexOf('.');
+        int signatureStart = token.lastIndexOf('.');
+        if (payloadStart < 0 || signatureStart <= payloadStart) {
+            throw new MalformedJwtException("JWT must have a header, a payload and a signature.");
+        }
+        byte[] signature;
+        try {
+            signature = Jwks.fromBase64Url(token.substring(signatureStart + 1));
+        } catch (IllegalArgumentException e) {
+            throw new MalformedJwtException("JWT signature is not base64url encoded.", e);
+        }
+        byte[] signingInput = token.substring(0, signatureStart).getBytes(StandardCharsets.US_ASCII);
+        if (!keyPair.verify(signingInput, signature)) {
+            throw new SignatureException("JWT signature does not match.");
+        }
+        return Jwts.parser()
+                .parseClaimsJwt(UNSECURED_HEADER + token.substring(payloadStart, signatureStart + 1))
+                .getBody();
+    }
+
+    @Override
+    public Map<String, Object> toJwk() {
+        return jwk;
+    }
+}
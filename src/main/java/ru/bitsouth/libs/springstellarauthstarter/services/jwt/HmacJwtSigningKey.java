@@ -0,0 +1,50 @@
+package ru.bitsouth.libs.springstellarauthstarter.services.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.springframework.util.StringUtils;
+
+import java.util.Map;
+
+public class HmacJwtSigningKey implements JwtSigningKey {
+    private final String secret;
+
+    public HmacJwtSigningKey(String secret) {
+        if (!StringUtils.hasText(secret)) {
+            throw new IllegalStateException("spring.stellar.auth.jwt-token-secret is required for HS512 tokens.");
+        }
+        this.secret = secret;
+    }
+
+    @Override
+    public String getAlgorithm() {
+        return SignatureAlgorithm.HS512.getValue();
+    }
+
+    @Override
+    public String getKeyId() {
+        return null;
+    }
+
+    @Override
+    public String sign(JwtBuilder jwtBuilder) {
+        return jwtBuilder
+                .signWith(SignatureAlgorithm.HS512, secret)
+                .compact();
+    }
+
+    @Override
+    public Claims verify(String token) {
+        return Jwts.parser()
+                .setSigningKey(secret)
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    @Override
+    public Map<String, Object> toJwk() {
+        return null;
+    }
+}
@@ -0,0 +1,40 @@
+package ru.bitsouth.libs.springstellarauthstarter.services.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.TreeMap;
+
+final class Jwks {
+    private Jwks() {
+    }
+
+    static String base64Url(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    static byte[] fromBase64Url(String value) {
+        return Base64.getUrlDecoder().decode(value);
+    }
+
+    /**
+     * RFC 7638 thumbprint over the required members of a public JWK.
+     */
+    static String thumbprint(Map<String, String> requiredMembers) {
+        StringBuilder json = new StringBuilder("{");
+        for (Map.Entry<String, String> member : new TreeMap<>(requiredMembers).entrySet()) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append('"').append(member.getKey()).append("\":\"").append(member.getValue()).append('"');
+        }
+        json.append('}');
+        try {
+            return base64Url(MessageDigest.getInstance("SHA-256").digest(json.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package ru.bitsouth.libs.springstellarauthstarter.services.jwt;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The key tokens are signed with plus every key they are accepted from.
+ * <p>
+ * A token is routed to its key by the raw header segment; the header JSON is decoded only the first time
+ * a header is seen. The published JWK Set is rendered once per {@link #reload}, which swaps all keys as one
+ * snapshot and bumps {@link #getVersion}.
+ */
+public class JwtKeySet {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int MAX_KNOWN_HEADERS = 64;
+
+    private volatile Keys keys;
+
+    public JwtKeySet(JwtSigningKey signingKey, List<JwtSigningKey> verificationKeys) {
+        this.keys = new Keys(0L, signingKey, verificationKeys);
+    }
+
+    public void reload(JwtSigningKey signingKey, List<JwtSigningKey> verificationKeys) {
+        keys = new Keys(keys.version + 1, signingKey, verificationKeys);
+    }
+
+    /**
+     * Changes on every {@link #reload}, so results verified against an older key set can be told apart.
+     */
+    public long getVersion() {
+        return keys.version;
+    }
+
+    public JwtSigningKey getSigningKey() {
+        return keys.signingKey;
+    }
+
+    public String sign(JwtBuilder jwtBuilder) {
+        return keys.signingKey.sign(jwtBuilder);
+    }
+
+    public Claims verify(String token) {
+        int headerEnd = token.indexOf('.');
+        if (headerEnd <= 0) {
+            throw new MalformedJwtException("JWT must have a header.");
+        }
+        String header = token.substring(0, headerEnd);
+        Keys keys = this.keys;
+        JwtSigningKey key = keys.keysByHeader.get(header);
+        if (key == null) {
+            key = resolve(keys, header);
+        }
+        Claims claims = key.verify(token);
+        if (keys.keysByHeader.size() < MAX_KNOWN_HEADERS) {
+            keys.keysByHeader.putIfAbsent(header, key);
+        }
+        return claims;
+    }
+
+    /**
+     * JWK Set document with the public keys, in the form served at {@code /.well-known/jwks.json}.
+     */
+    public String getJwks() {
+        return keys.jwks;
+    }
+
+    private static JwtSigningKey resolve(Keys keys, String header) {
+        Map<?, ?> fields;
+        try {
+            fields = OBJECT_MAPPER.readValue(Jwks.fromBase64Url(header), Map.class);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new MalformedJwtException("Unable to read JWT header.", e);
+        }
+        Object keyId = fields.get("kid");
+        JwtSigningKey key = keys.keysById.get(String.valueOf(keyId));
+        if (key == null || !Objects.equals(key.getAlgorithm(), fields.get("alg"))) {
+            throw new UnsupportedJwtException("Unknown JWT key " + keyId + ".");
+        }
+        return key;
+    }
+
+    private static class Keys {
+        private final long version;
+        private final JwtSigningKey signingKey;
+        private final Map<String, JwtSigningKey> keysById = new HashMap<>();
+        private final ConcurrentMap<String, JwtSigningKey> keysByHeader = new ConcurrentHashMap<>();
+        private final String jwks;
+
+        private Keys(long version, JwtSigningKey signingKey, List<JwtSigningKey> verificationKeys) {
+            this.version = version;
+            this.signingKey = signingKey;
+            List<Map<String, Object>> jwkList = new ArrayList<>();
+            List<JwtSigningKey> keys = new ArrayList<>();
+            keys.add(signingKey);
+            keys.addAll(verificationKeys);
+            for (JwtSigningKey key : keys) {
+                if (keysById.putIfAbsent(String.valueOf(key.getKeyId()), key) == null && key.toJwk() != null) {
+                    jwkList.add(key.toJwk());
+                }
+            }
+            try {
+                this.jwks = OBJECT_MAPPER.writeValueAsString(Collections.singletonMap("keys", jwkList));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
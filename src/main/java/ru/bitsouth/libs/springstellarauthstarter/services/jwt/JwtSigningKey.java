@@ -0,0 +1,30 @@
+package ru.bitsouth.libs.springstellarauthstarter.services.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import org.springframework.lang.Nullable;
+
+import java.util.Map;
+
+public interface JwtSigningKey {
+    /**
+     * Value of the JWS {@code alg} header.
+     */
+    String getAlgorithm();
+
+    /**
+     * RFC 7638 thumbprint used as {@code kid}, or {@code null} for symmetric keys.
+     */
+    @Nullable
+    String getKeyId();
+
+    String sign(JwtBuilder jwtBuilder);
+
+    Claims verify(String token);
+
+    /**
+     * Public JWK of this key, or {@code null} if it must not be published.
+     */
+    @Nullable
+    Map<String, Object> toJwk();
+}
@@ -0,0 +1,134 @@
+package ru.bitsouth.libs.springstellarauthstarter.services.xdr;
+
+import org.stellar.sdk.KeyPair;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+import static ru.bitsouth.libs.springstellarauthstarter.services.xdr.ChallengeTransaction.ENVELOPE_TYPE_TX;
+import static ru.bitsouth.libs.springstellarauthstarter.services.xdr.ChallengeTransaction.KEY_LENGTH;
+import static ru.bitsouth.libs.springstellarauthstarter.services.xdr.ChallengeTransaction.KEY_TYPE_ED25519;
+import static ru.bitsouth.libs.springstellarauthstarter.services.xdr.ChallengeTransaction.MANAGE_DATA;
+
+/**
+ * Signed challenge {@code TransactionEnvelope} (v1, one ManageData operation, one signature) serialized once.
+ * <p>
+ * Everything except the client account, the nonce, {@code maxTime} and the server signature is fixed for a given
+ * signer, network, sequence, fee and data name, so {@link #sign} only patches those fields into a per-thread copy
+ * of the prototype before hashing and signing it.
+ */
+public final class ChallengeTemplate {
+    public static final int NONCE_LENGTH = 32;
+    private static final int MAX_DATA_NAME_LENGTH = 64;
+    private static final int SIGNATURE_LENGTH = 64;
+    private static final int MAX_TIME_OFFSET = 64;
+    private static final int CLIENT_ACCOUNT_OFFSET = 88;
+    private static final int DATA_NAME_OFFSET = 128;
+
+    private final KeyPair signer;
+    private final Timings timings;
+    private final byte[] networkId;
+    private final byte[] prototype;
+    private final int nonceOffset;
+    private final int txEnd;
+    private final int signatureOffset;
+    private final ThreadLocal<byte[]> buffers;
+    private final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(ChallengeTransaction::sha256);
+
+    public ChallengeTemplate(KeyPair signer, byte[] networkId, long sequence, int fee, String dataName) {
+        this(signer, networkId, sequence, fee, dataName, Timings.NONE);
+    }
+
+    public ChallengeTemplate(
+            KeyPair signer, byte[] networkId, long sequence, int fee, String dataName, Timings timings
+    ) {
+        byte[] name = dataName.getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_DATA_NAME_LENGTH) {
+            throw new RuntimeException("Wrong home domain.");
+        }
+        int namePadded = (name.length + 3) & ~3;
+        this.signer = signer;
+        this.timings = timings;
+        this.networkId = networkId.clone();
+        this.nonceOffset = DATA_NAME_OFFSET + namePadded + 8;
+        this.txEnd = nonceOffset + NONCE_LENGTH + 4;
+        this.signatureOffset = txEnd + 12;
+        this.prototype = new byte[signatureOffset + SIGNATURE_LENGTH];
+
+        ByteBuffer xdr = ByteBuffer.wrap(prototype);
+        xdr.putInt(ENVELOPE_TYPE_TX)
+                .putInt(KEY_TYPE_ED25519)
+                .put(signer.getPublicKey())
+                .putInt(fee)
+                .putLong(sequence)
+                .putInt(1)                      // time bounds present
+                .putLong(0L)                    // minTime
+                .putLong(0L)                    // maxTime, patched
+                .putInt(0)                      // MEMO_NONE
+                .putInt(1)                      // one operation
+                .putInt(1)                      // operation source account present
+                .putInt(KEY_TYPE_ED25519)
+                .put(new byte[KEY_LENGTH])      // client account, patched
+                .putInt(MANAGE_DATA)
+                .putInt(name.length)
+                .put(name)
+                .put(new byte[namePadded - name.length])
+                .putInt(1)                      // data value present
+                .putInt(NONCE_LENGTH)
+                .put(new byte[NONCE_LENGTH])    // nonce, patched
+                .putInt(0)                      // transaction ext
+                .putInt(1)                      // one signature
+                .put(signer.getPublicKey(), KEY_LENGTH - 4, 4)
+                .putInt(SIGNATURE_LENGTH);
+        this.buffers = ThreadLocal.withInitial(prototype::clone);
+    }
+
+    public KeyPair getSigner() {
+        return signer;
+    }
+
+    public String sign(byte[] clientAccount, byte[] nonce, long maxTime) {
+        if (clientAccount.length != KEY_LENGTH || nonce.length != NONCE_LENGTH) {
+            throw new IllegalArgumentException("Client account and nonce must be 32 bytes long.");
+        }
+        long start = System.nanoTime();
+        byte[] xdr = buffers.get();
+        writeLong(xdr, MAX_TIME_OFFSET, maxTime);
+        System.arraycopy(clientAccount, 0, xdr, CLIENT_ACCOUNT_OFFSET, KEY_LENGTH);
+        System.arraycopy(nonce, 0, xdr, nonceOffset, NONCE_LENGTH);
+
+        // the envelope starts with ENVELOPE_TYPE_TX, which is also the tag of the signature payload
+        MessageDigest digest = digests.get();
+        digest.update(networkId);
+        digest.update(xdr, 0, txEnd);
+        byte[] hash = digest.digest();
+        long built = System.nanoTime();
+        byte[] signature = signer.sign(hash);
+        System.arraycopy(signature, 0, xdr, signatureOffset, SIGNATURE_LENGTH);
+        long signed = System.nanoTime();
+
+        String envelope = Base64.getEncoder().encodeToString(xdr);
+        timings.record(built - start, signed - built, System.nanoTime() - signed);
+        return envelope;
+    }
+
+    /**
+     * Receives how long each {@link #sign} spent building and hashing the envelope, signing it and encoding it.
+     */
+    @FunctionalInterface
+    public interface Timings {
+        Timings NONE = (buildNanos, signNanos, encodeNanos) -> {
+        };
+
+        void record(long buildNanos, long signNanos, long encodeNanos);
+    }
+
+    private static void writeLong(byte[] bytes, int offset, long value) {
+        for (int i = offset + 7; i >= offset; i--) {
+            bytes[i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package ru.bitsouth.libs.springstellarauthstarter.services.xdr;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Read-only view of a SEP-0010 challenge {@code TransactionEnvelope} that works directly on the decoded XDR bytes.
+ * <p>
+ * Only the layout a challenge may have is accepted: a v0 or v1 transaction envelope whose operations are all
+ * {@code MANAGE_DATA}. Fields are read in place and the hash is computed over the original transaction bytes,
+ * so nothing is re-serialized.
+ */
+public final class ChallengeTransaction {
+    static final int ENVELOPE_TYPE_TX_V0 = 0;
+    static final int ENVELOPE_TYPE_TX = 2;
+    static final int KEY_TYPE_ED25519 = 0;
+    static final int KEY_TYPE_MUXED_ED25519 = 0x100;
+    static final int MANAGE_DATA = 10;
+    static final int KEY_LENGTH = 32;
+    private static final int MAX_OPERATIONS = 100;
+    private static final int MAX_SIGNATURES = 20;
+    private static final int MAX_DATA_LENGTH = 64;
+    private static final int MAX_MEMO_TEXT_LENGTH = 28;
+    private static final byte[] KEY_TYPE_ED25519_BYTES = {0, 0, 0, KEY_TYPE_ED25519};
+    private static final byte[] ENVELOPE_TYPE_TX_BYTES = {0, 0, 0, ENVELOPE_TYPE_TX};
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(ChallengeTransaction::sha256);
+
+    private final byte[] xdr;
+    private int position;
+
+    private final int envelopeType;
+    private int sourceAccountOffset;
+    private int txOffset;
+    private int txEnd;
+    private boolean timeBounds;
+    private long minTime;
+    private long maxTime;
+    private int operationCount;
+    private int operationSourceAccountOffset = -1;
+    private int dataNameOffset;
+    private int dataNameLength;
+    private int dataValueOffset = -1;
+    private int dataValueLength;
+    private int signatureCount;
+    private int signaturesOffset;
+
+    private ChallengeTransaction(byte[] xdr) {
+        this.xdr = xdr;
+        this.envelopeType = readInt();
+        if (envelopeType != ENVELOPE_TYPE_TX && envelopeType != ENVELOPE_TYPE_TX_V0) {
+            throw new RuntimeException("Unsupported envelope type " + envelopeType + ".");
+        }
+        readTransaction();
+        readSignatures();
+        if (position != xdr.length) {
+            throw malformed();
+        }
+    }
+
+    public static ChallengeTransaction fromEnvelopeXdrBase64(String envelope) {
+        byte[] xdr;
+        try {
+            xdr = Base64.getDecoder().decode(envelope);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Can't decode tx", e);
+        }
+        return fromEnvelopeXdr(xdr);
+    }
+
+    public static ChallengeTransaction fromEnvelopeXdr(byte[] xdr) {
+        return new ChallengeTransaction(xdr);
+    }
+
+    /**
+     * SHA-256 of the signature payload: network id, {@code ENVELOPE_TYPE_TX} and the transaction in its v1 form.
+     */
+    public byte[] hash(byte[] networkId) {
+        MessageDigest digest = SHA_256.get();
+        digest.update(networkId);
+        digest.update(ENVELOPE_TYPE_TX_BYTES);
+        if (envelopeType == ENVELOPE_TYPE_TX_V0) {
+            digest.update(KEY_TYPE_ED25519_BYTES);
+        }
+        digest.update(xdr, txOffset, txEnd - txOffset);
+        return digest.digest();
+    }
+
+    public boolean isSourceAccount(byte[] publicKey) {
+        return regionEquals(sourceAccountOffset, publicKey);
+    }
+
+    public byte[] getSourceAccount() {
+        return copy(sourceAccountOffset, KEY_LENGTH);
+    }
+
+    public boolean hasTimeBounds() {
+        return timeBounds;
+    }
+
+    public long getMinTime() {
+        return minTime;
+    }
+
+    public long getMaxTime() {
+        return maxTime;
+    }
+
+    public int getOperationCount() {
+        return operationCount;
+    }
+
+    public boolean hasOperationSourceAccount() {
+        return operationSourceAccountOffset >= 0;
+    }
+
+    /**
+     * Ed25519 key of the first operation's source account, or {@code null} if the operation has none.
+     */
+    public byte[] getOperationSourceAccount() {
+        return operationSourceAccountOffset < 0 ? null : copy(operationSourceAccountOffset, KEY_LENGTH);
+    }
+
+    public String getDataName() {
+        return new String(xdr, dataNameOffset, dataNameLength, StandardCharsets.UTF_8);
+    }
+
+    public boolean isDataName(byte[] name) {
+        return name.length == dataNameLength && regionEquals(dataNameOffset, name);
+    }
+
+    public byte[] getDataValue() {
+        return dataValueOffset < 0 ? null : copy(dataValueOffset, dataValueLength);
+    }
+
+    public int getSignatureCount() {
+        return signatureCount;
+    }
+
+    /**
+     * Signature hint (last four bytes of the signer's public key) of the i-th signature, as a big-endian int.
+     */
+    public int getSignatureHint(int i) {
+        return readInt(signatureOffset(i));
+    }
+
+    public byte[] getSignature(int i) {
+        int offset = signatureOffset(i) + 4;
+        return copy(offset + 4, readInt(offset));
+    }
+
+    public static int signatureHint(byte[] publicKey) {
+        return readInt(publicKey, publicKey.length - 4);
+    }
+
+    private void readTransaction() {
+        txOffset = position;
+        if (envelopeType == ENVELOPE_TYPE_TX) {
+            sourceAccountOffset = readMuxedAccount();
+        } else {
+            sourceAccountOffset = skip(KEY_LENGTH);
+        }
+        skip(4 + 8);
+        timeBounds = readBoolean();
+        if (timeBounds) {
+            minTime = readLong();
+            maxTime = readLong();
+        }
+        readMemo();
+        operationCount = readInt();
+        if (operationCount < 0 || operationCount > MAX_OPERATIONS) {
+            throw malformed();
+        }
+        for (int i = 0; i < operationCount; i++) {
+            readOperation(i == 0);
+        }
+        if (readInt() != 0) {
+            throw malformed();
+        }
+        txEnd = position;
+    }
+
+    private void readMemo() {
+        int type = readInt();
+        switch (type) {
+            case 0:
+                break;
+            case 1:
+                skipOpaque(MAX_MEMO_TEXT_LENGTH);
+                break;
+            case 2:
+                skip(8);
+                break;
+            case 3:
+            case 4:
+                skip(32);
+                break;
+            default:
+                throw malformed();
+        }
+    }
+
+    private void readOperation(boolean first) {
+        int sourceAccount = readBoolean() ? readMuxedAccount() : -1;
+        if (readInt() != MANAGE_DATA) {
+            throw new RuntimeException("Challenge has no manageData operation.");
+        }
+        int nameLength = readInt();
+        int nameOffset = skipPadded(nameLength, MAX_DATA_LENGTH);
+        int valueLength = 0;
+        int valueOffset = -1;
+        if (readBoolean()) {
+            valueLength = readInt();
+            valueOffset = skipPadded(valueLength, MAX_DATA_LENGTH);
+        }
+        if (first) {
+            operationSourceAccountOffset = sourceAccount;
+            dataNameOffset = nameOffset;
+            dataNameLength = nameLength;
+            dataValueOffset = valueOffset;
+            dataValueLength = valueLength;
+        }
+    }
+
+    private void readSignatures() {
+        signatureCount = readInt();
+        if (signatureCount < 0 || signatureCount > MAX_SIGNATURES) {
+            throw malformed();
+        }
+        signaturesOffset = position;
+        for (int i = 0; i < signatureCount; i++) {
+            skip(4);
+            skipOpaque(64);
+        }
+    }
+
+    private int signatureOffset(int i) {
+        if (i < 0 || i >= signatureCount) {
+            throw new IndexOutOfBoundsException(String.valueOf(i));
+        }
+        int offset = signaturesOffset;
+        for (int j = 0; j < i; j++) {
+            offset += 8 + padded(readInt(offset + 4));
+        }
+        return offset;
+    }
+
+    private int readMuxedAccount() {
+        int type = readInt();
+        if (type == KEY_TYPE_MUXED_ED25519) {
+            skip(8);
+        } else if (type != KEY_TYPE_ED25519) {
+            throw malformed();
+        }
+        return skip(KEY_LENGTH);
+    }
+
+    private boolean readBoolean() {
+        int value = readInt();
+        if (value != 0 && value != 1) {
+            throw malformed();
+        }
+        return value == 1;
+    }
+
+    private int readInt() {
+        return readInt(skip(4));
+    }
+
+    private long readLong() {
+        int offset = skip(8);
+        return ((long) readInt(offset) << 32) | (readInt(offset + 4) & 0xFFFFFFFFL);
+    }
+
+    private int readInt(int offset) {
+        return readInt(xdr, offset);
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) << 24
+                | (bytes[offset + 1] & 0xFF) << 16
+                | (bytes[offset + 2] & 0xFF) << 8
+                | (bytes[offset + 3] & 0xFF);
+    }
+
+    private void skipOpaque(int maxLength) {
+        skipPadded(readInt(), maxLength);
+    }
+
+    private int skipPadded(int length, int maxLength) {
+        if (length < 0 || length > maxLength) {
+            throw malformed();
+        }
+        int offset = skip(padded(length));
+        for (int i = offset + length; i < position; i++) {
+            if (xdr[i] != 0) {
+                throw malformed();
+            }
+        }
+        return offset;
+    }
+
+    private int skip(int length) {
+        int offset = position;
+        if (length < 0 || xdr.length - offset < length) {
+            throw malformed();
+        }
+        position += length;
+        return offset;
+    }
+
+    private boolean regionEquals(int offset, byte[] expected) {
+        int diff = 0;
+        for (int i = 0; i < expected.length; i++) {
+            diff |= xdr[offset + i] ^ expected[i];
+        }
+        return diff == 0;
+    }
+
+    private byte[] copy(int offset, int length) {
+        byte[] result = new byte[length];
+        System.arraycopy(xdr, offset, result, 0, length);
+        return result;
+    }
+
+    private static int padded(int length) {
+        return (length + 3) & ~3;
+    }
+
+    private static RuntimeException malformed() {
+        return new RuntimeException("Can't decode tx");
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -3,7 +3,7 @@ package ru.bitsouth.libs.springstellarauthstarter;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "spring.stellar.auth.jwt-token-secret=test-secret")
 class SpringStellarAuthStarterApplicationTests {
 
     @Test
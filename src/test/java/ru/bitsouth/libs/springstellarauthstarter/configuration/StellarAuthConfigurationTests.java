@@ -0,0 +1,100 @@
+package ru.bitsouth.libs.springstellarauthstarter.configuration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.JwksController;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.StellarAuthController;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.StellarTomlController;
+import ru.bitsouth.libs.springstellarauthstarter.services.ConsumedChallengeRegistry;
+import ru.bitsouth.libs.springstellarauthstarter.services.InMemoryConsumedChallengeRegistry;
+import ru.bitsouth.libs.springstellarauthstarter.services.JwtTokenCreator;
+import ru.bitsouth.libs.springstellarauthstarter.services.JwtTokenVerifier;
+import ru.bitsouth.libs.springstellarauthstarter.services.RefreshTokenService;
+import ru.bitsouth.libs.springstellarauthstarter.services.StellarAuthService;
+import ru.bitsouth.libs.springstellarauthstarter.services.StellarTomlService;
+import ru.bitsouth.libs.springstellarauthstarter.services.TokenRevocationService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StellarAuthConfigurationTests {
+    private static final AutoConfigurations STARTER = AutoConfigurations.of(
+            ValidationAutoConfiguration.class,
+            StellarAuthConfiguration.class,
+            StellarAuthServletConfiguration.class,
+            StellarAuthReactiveConfiguration.class
+    );
+
+    @Test
+    void registersServicesWithoutProxies() {
+        new ApplicationContextRunner()
+                .withConfiguration(STARTER)
+                .withPropertyValues("spring.stellar.auth.jwt-token-secret=test-secret")
+                .run(context -> {
+                    for (Class<?> type : new Class<?>[]{
+                            StellarAuthService.class, JwtTokenCreator.class, JwtTokenVerifier.class,
+                            RefreshTokenService.class, TokenRevocationService.class, StellarTomlService.class
+                    }) {
+                        Object bean = context.getBean(type);
+                        assertFalse(AopUtils.isAopProxy(bean), type.getSimpleName());
+                        assertSame(type, bean.getClass());
+                    }
+                    assertEquals(0, context.getBeansOfType(StellarAuthController.class).size());
+                });
+    }
+
+    @Test
+    void registersControllersInServletApplications() {
+        new WebApplicationContextRunner()
+                .withConfiguration(STARTER)
+                .withPropertyValues("spring.stellar.auth.jwt-token-secret=test-secret")
+                .run(context -> {
+                    assertFalse(AopUtils.isAopProxy(context.getBean(StellarAuthController.class)));
+                    assertEquals(1, context.getBeansOfType(StellarTomlController.class).size());
+                    assertEquals(1, context.getBeansOfType(JwksController.class).size());
+                });
+    }
+
+    @Test
+    void registersRequestExecutorAsBeanInVirtualMode() {
+        new WebApplicationContextRunner()
+                .withConfiguration(STARTER)
+                .withPropertyValues(
+                        "spring.stellar.auth.jwt-token-secret=test-secret",
+                        "spring.stellar.auth.execution.mode=virtual"
+                )
+                .run(context -> {
+                    assertTrue(context.containsBean("stellarAuthRequestExecutor"));
+                    assertTrue(context.containsBean("stellarAuthVirtualThreadsCustomizer"));
+                });
+    }
+
+    @Test
+    void backsOffForUserBeans() {
+        new ApplicationContextRunner()
+                .withConfiguration(STARTER)
+                .withUserConfiguration(UserConfiguration.class)
+                .withPropertyValues("spring.stellar.auth.jwt-token-secret=test-secret")
+                .run(context -> assertSame(
+                        UserConfiguration.REGISTRY, context.getBean(ConsumedChallengeRegistry.class)
+                ));
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    static class UserConfiguration {
+        static final ConsumedChallengeRegistry REGISTRY = new InMemoryConsumedChallengeRegistry(16);
+
+        @Bean
+        ConsumedChallengeRegistry consumedChallengeRegistry() {
+            return REGISTRY;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package ru.bitsouth.libs.springstellarauthstarter.controllers;
+
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.stellar.sdk.KeyPair;
+import ru.bitsouth.libs.springstellarauthstarter.configuration.StellarAuthConfigurationProperties;
+import ru.bitsouth.libs.springstellarauthstarter.services.JwtTokenVerifier;
+import ru.bitsouth.libs.springstellarauthstarter.services.TokenRevocationList;
+import ru.bitsouth.libs.springstellarauthstarter.services.jwt.EdDsaJwtSigningKey;
+import ru.bitsouth.libs.springstellarauthstarter.services.jwt.HmacJwtSigningKey;
+import ru.bitsouth.libs.springstellarauthstarter.services.jwt.JwtKeySet;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class JwtAuthenticationFilterTests {
+    private final JwtKeySet jwtKeySet = new JwtKeySet(new HmacJwtSigningKey("test-secret"), Collections.emptyList());
+    private final JwtTokenVerifier verifier = new JwtTokenVerifier(
+            new StellarAuthConfigurationProperties(), jwtKeySet, new TokenRevocationList(1024, 0.01, 60L)
+    );
+
+    @Test
+    void authenticatesOwnTokens() throws Exception {
+        HttpServletRequest request = (HttpServletRequest) filter(false, jwtKeySet.sign(jwt())).getRequest();
+
+        assertNotNull(request.getAttribute(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE));
+        assertEquals("GACCOUNT", request.getUserPrincipal().getName());
+    }
+
+    @Test
+    void leavesForeignTokensToApplicationUnlessRequired() throws Exception {
+        String foreign = new JwtKeySet(new EdDsaJwtSigningKey(KeyPair.random()), Collections.emptyList())
+                .sign(jwt());
+
+        assertNull(((HttpServletRequest) filter(false, foreign).getRequest()).getUserPrincipal());
+        assertNotNull(filter(false, "opaque-oauth-token").getRequest());
+        assertNull(filter(true, foreign).getRequest());
+        assertNull(filter(true, "opaque-oauth-token").getRequest());
+    }
+
+    private MockFilterChain filter(boolean required, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api");
+        request.addHeader("Authorization", "Bearer " + token);
+        MockFilterChain chain = new MockFilterChain();
+        new JwtAuthenticationFilter(verifier, required).doFilter(request, new MockHttpServletResponse(), chain);
+        return chain;
+    }
+
+    private static JwtBuilder jwt() {
+        return Jwts.builder()
+                .setSubject("GACCOUNT")
+                .setExpiration(new Date(System.currentTimeMillis() + 60000L));
+    }
+}
@@ -0,0 +1,192 @@
+package ru.bitsouth.libs.springstellarauthstarter.controllers;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.stellar.sdk.KeyPair;
+import org.stellar.sdk.Network;
+import org.stellar.sdk.Transaction;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.models.BatchChallengeRequest;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.models.BatchChallengeResponse;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.models.ChallengeResponse;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.models.JwtTokenRequest;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.models.JwtTokenResponse;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.models.RefreshTokenRequest;
+import ru.bitsouth.libs.springstellarauthstarter.services.JwtTokenVerifier;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Full SEP-10 logins of many wallets against the servlet stack: {@code GET /auth}, sign, {@code POST /auth}.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.stellar.auth.jwt-token-secret=test-secret",
+                "spring.stellar.auth.rate-limit.enabled=false"
+        }
+)
+class StellarAuthFlowTests {
+    private static final int WALLETS = 200;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private JwtTokenVerifier jwtTokenVerifier;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * A streamed request body makes {@code HttpURLConnection} fail on a 401 instead of returning it.
+     */
+    @BeforeEach
+    void bufferRequestBodies() {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setOutputStreaming(false);
+        restTemplate.getRestTemplate().setRequestFactory(requestFactory);
+    }
+
+    @Test
+    void logsInManyWalletsConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<KeyPair>> logins = new ArrayList<>(WALLETS);
+            for (int i = 0; i < WALLETS; i++) {
+                logins.add(executor.submit(() -> {
+                    KeyPair wallet = KeyPair.random();
+                    ResponseEntity<JwtTokenResponse> response = postToken(sign(getChallenge(wallet), wallet));
+                    assertEquals(HttpStatus.OK, response.getStatusCode());
+                    assertEquals(wallet.getAccountId(),
+                            jwtTokenVerifier.verify(response.getBody().getToken()).getSubject());
+                    return wallet;
+                }));
+            }
+            for (Future<KeyPair> login : logins) {
+                assertNotNull(login.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsReplayedAndForeignSignedChallenges() throws IOException {
+        KeyPair wallet = KeyPair.random();
+        double replays = failures("replay");
+        double clientSignatures = failures("client_signature");
+
+        String signed = sign(getChallenge(wallet), wallet);
+        assertEquals(HttpStatus.OK, postToken(signed).getStatusCode());
+        assertEquals(HttpStatus.CONFLICT, postToken(signed).getStatusCode());
+        assertEquals(replays + 1, failures("replay"));
+
+        String foreign = sign(getChallenge(wallet), KeyPair.random());
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, postToken(foreign).getStatusCode());
+        assertEquals(clientSignatures + 1, failures("client_signature"));
+    }
+
+    @Test
+    void servesBatchChallengesWithNetworkPassphrase() {
+        BatchChallengeResponse response = restTemplate.postForObject(
+                "/auth/batch/challenges",
+                BatchChallengeRequest.builder()
+                        .accounts(Arrays.asList(KeyPair.random().getAccountId(), "GNOTANACCOUNT"))
+                        .build(),
+                BatchChallengeResponse.class
+        );
+
+        assertEquals(Network.PUBLIC.getNetworkPassphrase(), response.getNetworkPassphrase());
+        assertNotNull(response.getItems().get(0).getTransaction());
+        assertNotNull(response.getItems().get(1).getError());
+    }
+
+    @Test
+    void rejectsUnknownHomeDomain() {
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                "/auth?account={account}&home_domain={homeDomain}", String.class,
+                KeyPair.random().getAccountId(), "unknown.example.com"
+        );
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void rejectsOversizedBatch() {
+        ResponseEntity<String> response = restTemplate.postForEntity(
+                "/auth/batch/challenges",
+                BatchChallengeRequest.builder().accounts(Collections.nCopies(101, "GACCOUNT")).build(),
+                String.class
+        );
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, response.getStatusCode());
+    }
+
+    @Test
+    void rejectsMalformedAccountBeforeRateLimiting() {
+        double accounts = failures("account");
+
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                "/auth?account={account}", String.class, "GNOTANACCOUNT"
+        );
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(accounts + 1, failures("account"));
+    }
+
+    @Test
+    void answersBadRefreshTokensWithClientErrors() throws IOException {
+        KeyPair wallet = KeyPair.random();
+        String refreshToken = postToken(sign(getChallenge(wallet), wallet)).getBody().getRefreshToken();
+
+        assertEquals(HttpStatus.OK, postRefresh(refreshToken).getStatusCode());
+        assertEquals(HttpStatus.CONFLICT, postRefresh(refreshToken).getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, postRefresh(refreshToken).getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, postRefresh("malformed").getStatusCode());
+    }
+
+    private ChallengeResponse getChallenge(KeyPair wallet) {
+        ChallengeResponse challenge = restTemplate.getForObject(
+                "/auth?account={account}", ChallengeResponse.class, wallet.getAccountId()
+        );
+        assertEquals(Network.PUBLIC.getNetworkPassphrase(), challenge.getNetworkPassphrase());
+        return challenge;
+    }
+
+    private ResponseEntity<JwtTokenResponse> postToken(String transaction) {
+        return restTemplate.postForEntity(
+                "/auth", JwtTokenRequest.builder().transaction(transaction).build(), JwtTokenResponse.class
+        );
+    }
+
+    private ResponseEntity<String> postRefresh(String refreshToken) {
+        return restTemplate.postForEntity(
+                "/auth/refresh", RefreshTokenRequest.builder().refreshToken(refreshToken).build(), String.class
+        );
+    }
+
+    private double failures(String check) {
+        return meterRegistry.get("stellar.auth.check.failures").tag("check", check).counter().count();
+    }
+
+    private static String sign(ChallengeResponse challenge, KeyPair signer) throws IOException {
+        Network network = new Network(challenge.getNetworkPassphrase());
+        Transaction transaction = (Transaction) Transaction.fromEnvelopeXdr(challenge.getTransaction(), network);
+        transaction.sign(signer);
+        return transaction.toEnvelopeXdrBase64();
+    }
+}
@@ -0,0 +1,86 @@
+package ru.bitsouth.libs.springstellarauthstarter.controllers.reactive;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.stellar.sdk.KeyPair;
+import ru.bitsouth.libs.springstellarauthstarter.controllers.models.BatchChallengeRequest;
+
+import java.util.Arrays;
+
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.main.web-application-type=reactive",
+                "spring.stellar.auth.jwt-token-secret=test-secret",
+                "spring.stellar.auth.rate-limit.account.permits-per-second=0.001"
+        }
+)
+class StellarAuthReactiveTests {
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void servesChallengeAndToml() {
+        webTestClient.get()
+                .uri("/auth?account={account}", KeyPair.random().getAccountId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.transaction").isNotEmpty()
+                .jsonPath("$.networkPassphrase").isEqualTo("Public Global Stellar Network ; September 2015");
+
+        String etag = webTestClient.get()
+                .uri("/.well-known/Stellar.toml")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "*")
+                .returnResult(String.class)
+                .getResponseHeaders().getETag();
+
+        webTestClient.get()
+                .uri("/.well-known/Stellar.toml")
+                .ifNoneMatch(etag)
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    void rateLimitsChallengesOfOneAccount() {
+        String account = KeyPair.random().getAccountId();
+        for (int i = 0; i < 10; i++) {
+            webTestClient.get().uri("/auth?account={account}", account).exchange();
+        }
+
+        webTestClient.get()
+                .uri("/auth?account={account}", account)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @Test
+    void servesBatchChallengesWithNetworkPassphrase() {
+        webTestClient.post()
+                .uri("/auth/batch/challenges")
+                .bodyValue(BatchChallengeRequest.builder()
+                        .accounts(Arrays.asList(KeyPair.random().getAccountId(), KeyPair.random().getAccountId()))
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.items.length()").isEqualTo(2)
+                .jsonPath("$.items[0].transaction").isNotEmpty()
+                .jsonPath("$.networkPassphrase").isEqualTo("Public Global Stellar Network ; September 2015");
+    }
+
+    @Test
+    void rejectsMissingAccount() {
+        webTestClient.get()
+                .uri("/auth")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+}
@@ -0,0 +1,92 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.stellar.sdk.KeyPair;
+import org.stellar.sdk.Network;
+import org.stellar.sdk.Transaction;
+import ru.bitsouth.libs.springstellarauthstarter.configuration.StellarAuthConfigurationProperties.SignerMissPolicy;
+import ru.bitsouth.libs.springstellarauthstarter.services.xdr.ChallengeTemplate;
+import ru.bitsouth.libs.springstellarauthstarter.services.xdr.ChallengeTransaction;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountSignerCacheTests {
+    private final KeyPair server = KeyPair.random();
+    private final KeyPair account = KeyPair.random();
+    private final KeyPair first = KeyPair.random();
+    private final KeyPair second = KeyPair.random();
+    private final byte[] networkId = Network.PUBLIC.getNetworkId();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void requiresThresholdOfFileSigners() throws Exception {
+        Path file = directory.resolve("signers");
+        Files.write(file, Collections.singletonList(account.getAccountId() + " 2 "
+                + account.getAccountId() + "=0 " + first.getAccountId() + "=1 " + second.getAccountId() + "=1"
+        ), StandardCharsets.UTF_8);
+        AccountSignerCache cache = new AccountSignerCache(
+                new FileAccountSignerProvider(file), 60L, 16, SignerMissPolicy.WAIT, 1000L
+        );
+        AccountSigners signers = cache.get(account.getPublicKey());
+
+        assertFalse(isMet(signers, account));
+        assertFalse(isMet(signers, first));
+        assertFalse(isMet(signers, first, first));
+        assertTrue(isMet(signers, first, second));
+        assertFalse(isMet(cache.get(first.getPublicKey()), second));
+        assertTrue(isMet(cache.get(first.getPublicKey()), first));
+    }
+
+    @Test
+    void usesMasterKeyOnMissWithoutBlocking() throws Exception {
+        CompletableFuture<AccountSigners> lookup = new CompletableFuture<>();
+        AccountSignerCache cache = new AccountSignerCache(
+                accountId -> lookup, 60L, 16, SignerMissPolicy.MASTER_KEY, 1000L
+        );
+        cache.prefetch(account.getAccountId());
+        assertTrue(isMet(cache.get(account.getPublicKey()), account));
+
+        lookup.complete(new AccountSigners(1, Collections.singletonList(new AccountSigners.Signer(first, 1))));
+        assertFalse(isMet(cache.get(account.getPublicKey()), account));
+        assertTrue(isMet(cache.get(account.getPublicKey()), first));
+    }
+
+    @Test
+    void keepsExpiredSignersWhileRefreshing() {
+        CompletableFuture<AccountSigners> refresh = new CompletableFuture<>();
+        AccountSigners initial = new AccountSigners(1, Collections.singletonList(new AccountSigners.Signer(first, 1)));
+        int[] calls = new int[1];
+        AccountSignerCache cache = new AccountSignerCache(
+                accountId -> calls[0]++ == 0 ? CompletableFuture.completedFuture(initial) : refresh,
+                0L, 16, SignerMissPolicy.WAIT, 1000L
+        );
+
+        assertEquals(initial, cache.get(account.getPublicKey()));
+        assertEquals(initial, cache.get(account.getPublicKey()));
+        assertEquals(initial, cache.get(account.getPublicKey()));
+        assertEquals(2, calls[0]);
+    }
+
+    private boolean isMet(AccountSigners signers, KeyPair... keyPairs) throws Exception {
+        String challenge = new ChallengeTemplate(server, networkId, 0L, 100, "Sample auth")
+                .sign(account.getPublicKey(), new byte[ChallengeTemplate.NONCE_LENGTH], 1000L);
+        Transaction transaction = (Transaction) Transaction.fromEnvelopeXdr(challenge, Network.PUBLIC);
+        for (KeyPair keyPair : keyPairs) {
+            transaction.sign(keyPair);
+        }
+        ChallengeTransaction tx = ChallengeTransaction.fromEnvelopeXdrBase64(transaction.toEnvelopeXdrBase64());
+        byte[] hash = tx.hash(networkId);
+        return signers.isMetBy(signers.getSignedWeight(tx, hash, server.getPublicKey()));
+    }
+}
@@ -0,0 +1,45 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import org.junit.jupiter.api.Test;
+import ru.bitsouth.libs.springstellarauthstarter.configuration.StellarAuthConfigurationProperties;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChallengeRateLimiterTests {
+
+    @Test
+    void allowsBurstAndThenRejects() {
+        ChallengeRateLimiter limiter = limiter(2);
+
+        assertTrue(limiter.tryAcquireAccount("GA", 1));
+        assertTrue(limiter.tryAcquireAccount("GA", 1));
+        assertTrue(limiter.tryAcquireAccount("GA", 1));
+        assertFalse(limiter.tryAcquireAccount("GA", 1));
+        assertTrue(limiter.tryAcquireAccount("GB", 1));
+        assertFalse(limiter.tryAcquireAddress("127.0.0.1", 4));
+        assertTrue(limiter.tryAcquireAddress("127.0.0.1", 3));
+    }
+
+    @Test
+    void sharesOverflowBucketWhenMapIsFull() {
+        ChallengeRateLimiter limiter = limiter(1);
+
+        assertTrue(limiter.tryAcquireAccount("GA", 3));
+        assertTrue(limiter.tryAcquireAccount("GB", 3));
+        assertFalse(limiter.tryAcquireAccount("GC", 1));
+    }
+
+    private static ChallengeRateLimiter limiter(int maxKeys) {
+        StellarAuthConfigurationProperties.RateLimit rateLimit = rateLimit(maxKeys);
+        return new ChallengeRateLimiter(rateLimit, new InMemoryRateLimiterStore(rateLimit));
+    }
+
+    private static StellarAuthConfigurationProperties.RateLimit rateLimit(int maxKeys) {
+        StellarAuthConfigurationProperties.RateLimit rateLimit = new StellarAuthConfigurationProperties.RateLimit();
+        rateLimit.setAccount(new StellarAuthConfigurationProperties.RateLimit.Limit(0.001, 3));
+        rateLimit.setAddress(new StellarAuthConfigurationProperties.RateLimit.Limit(0.001, 3));
+        rateLimit.setMaxKeys(maxKeys);
+        return rateLimit;
+    }
+}
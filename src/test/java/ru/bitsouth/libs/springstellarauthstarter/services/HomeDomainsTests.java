@@ -0,0 +1,57 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import org.junit.jupiter.api.Test;
+import org.stellar.sdk.KeyPair;
+import org.stellar.sdk.Network;
+import ru.bitsouth.libs.springstellarauthstarter.services.xdr.ChallengeTemplate;
+import ru.bitsouth.libs.springstellarauthstarter.services.xdr.ChallengeTransaction;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HomeDomainsTests {
+    private final HomeDomain pubnet = new HomeDomain(
+            "example.com", Network.PUBLIC.getNetworkPassphrase(), ring()
+    );
+    private final HomeDomain testnet = new HomeDomain(
+            "testnet.example.com", Network.TESTNET.getNetworkPassphrase(), ring()
+    );
+    private final HomeDomains domains = new HomeDomains(Arrays.asList(pubnet, testnet));
+
+    @Test
+    void resolvesRequestedDomain() {
+        assertSame(pubnet, domains.get((String) null));
+        assertSame(testnet, domains.get("testnet.example.com"));
+        assertSame(testnet, domains.get("testnet.example.com auth"));
+        assertNull(domains.get("other.example.com"));
+        assertArrayEquals(Network.TESTNET.getNetworkId(), testnet.getNetworkId());
+    }
+
+    @Test
+    void resolvesDomainOfChallenge() {
+        for (HomeDomain domain : Arrays.asList(pubnet, testnet)) {
+            String challenge = new ChallengeTemplate(
+                    domain.getKeyRing().getActiveKey(), domain.getNetworkId(), 0L, 100, domain.getDataName()
+            ).sign(KeyPair.random().getPublicKey(), new byte[ChallengeTemplate.NONCE_LENGTH], 1000L);
+
+            assertSame(domain, domains.get(ChallengeTransaction.fromEnvelopeXdrBase64(challenge)));
+        }
+        String other = new ChallengeTemplate(KeyPair.random(), pubnet.getNetworkId(), 0L, 100, "example.org auth")
+                .sign(KeyPair.random().getPublicKey(), new byte[ChallengeTemplate.NONCE_LENGTH], 1000L);
+        assertNull(domains.get(ChallengeTransaction.fromEnvelopeXdrBase64(other)));
+    }
+
+    @Test
+    void rejectsDuplicateDomain() {
+        assertThrows(RuntimeException.class, () -> new HomeDomains(Arrays.asList(pubnet, pubnet)));
+    }
+
+    private static ServerKeyRing ring() {
+        return new ServerKeyRing(KeyPair.random(), Collections.emptyList());
+    }
+}
@@ -0,0 +1,64 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryConsumedChallengeRegistryTests {
+    private final long now = System.currentTimeMillis() / 1000L;
+
+    @Test
+    void rejectsSecondUseOfSameHash() {
+        InMemoryConsumedChallengeRegistry registry = new InMemoryConsumedChallengeRegistry(1024);
+        byte[] hash = randomHash();
+
+        assertTrue(registry.markConsumed(hash, now + 300));
+        assertFalse(registry.markConsumed(hash.clone(), now + 300));
+        assertTrue(registry.markConsumed(randomHash(), now + 300));
+    }
+
+    @Test
+    void reusesSlotsOfExpiredHashes() {
+        InMemoryConsumedChallengeRegistry registry = new InMemoryConsumedChallengeRegistry(1);
+        for (int i = 0; i < InMemoryConsumedChallengeRegistry.WAYS; i++) {
+            assertTrue(registry.markConsumed(randomHash(), now - 1));
+        }
+        for (int i = 0; i < InMemoryConsumedChallengeRegistry.WAYS * 10; i++) {
+            assertTrue(registry.markConsumed(randomHash(), now - 1));
+        }
+    }
+
+    @Test
+    void failsClosedWhenBucketIsFull() {
+        InMemoryConsumedChallengeRegistry registry = new InMemoryConsumedChallengeRegistry(1);
+        for (int i = 0; i < InMemoryConsumedChallengeRegistry.WAYS; i++) {
+            assertTrue(registry.markConsumed(randomHash(), now + 300));
+        }
+        assertThrows(ServerBusyException.class, () -> registry.markConsumed(randomHash(), now + 300));
+    }
+
+    @Test
+    void holdsNominalLoadWithoutOverflow() {
+        long liveChallenges = 300L * 300;
+        InMemoryConsumedChallengeRegistry registry = new InMemoryConsumedChallengeRegistry(
+                InMemoryConsumedChallengeRegistry.capacityFor(liveChallenges)
+        );
+        Random random = new Random(42);
+        for (long i = 0; i < liveChallenges; i++) {
+            byte[] hash = new byte[32];
+            random.nextBytes(hash);
+            assertTrue(registry.markConsumed(hash, now + 300));
+        }
+    }
+
+    private static byte[] randomHash() {
+        byte[] hash = new byte[32];
+        ThreadLocalRandom.current().nextBytes(hash);
+        return hash;
+    }
+}
@@ -0,0 +1,125 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtEnrichmentPipelineTests {
+    private final StellarAuthMetrics metrics = new StellarAuthMetrics(new SimpleMeterRegistry());
+
+    @Test
+    void mergesClaimsAndKeepsRegisteredOnes() {
+        JwtEnrichmentPipeline pipeline = new JwtEnrichmentPipeline(Arrays.asList(
+                enricher(Collections.singletonMap("role", "user"), Duration.ZERO, true),
+                enricher(Collections.singletonMap(Claims.SUBJECT, "GOTHER"), Duration.ZERO, true)
+        ), metrics, 1000L, 16);
+
+        Claims claims = claims(pipeline);
+        assertEquals("user", claims.get("role"));
+        assertEquals("GACCOUNT", claims.getSubject());
+    }
+
+    @Test
+    void skipsOptionalEnricherAfterTimeoutAndFailsRequiredOne() {
+        AsyncJwtEnrichInterface hanging = enricher(null, Duration.ZERO, false);
+        JwtEnrichmentPipeline optional = new JwtEnrichmentPipeline(Collections.singletonList(hanging), metrics, 10L, 16);
+        assertFalse(claims(optional).containsKey("role"));
+
+        AsyncJwtEnrichInterface failing = enricher(null, Duration.ZERO, true);
+        JwtEnrichmentPipeline required = new JwtEnrichmentPipeline(Collections.singletonList(failing), metrics, 10L, 16);
+        assertThrows(RuntimeException.class, () -> claims(required));
+    }
+
+    @Test
+    void reusesCachedClaimsPerPublicKey() {
+        AtomicInteger calls = new AtomicInteger();
+        AsyncJwtEnrichInterface counting = new AsyncJwtEnrichInterface() {
+            @Override
+            public CompletableFuture<Map<String, Object>> enrich(String publicKey) {
+                calls.incrementAndGet();
+                return CompletableFuture.completedFuture(Collections.singletonMap("role", "user"));
+            }
+
+            @Override
+            public Duration getCacheTtl() {
+                return Duration.ofMinutes(1);
+            }
+        };
+        JwtEnrichmentPipeline pipeline = new JwtEnrichmentPipeline(Collections.singletonList(counting), metrics, 1000L, 16);
+
+        claims(pipeline);
+        assertEquals("user", claims(pipeline).get("role"));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void callsAgainAfterTimedOutCall() {
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<Map<String, Object>> stuck = new CompletableFuture<>();
+        AsyncJwtEnrichInterface flaky = new AsyncJwtEnrichInterface() {
+            @Override
+            public CompletableFuture<Map<String, Object>> enrich(String publicKey) {
+                return calls.incrementAndGet() == 1
+                        ? stuck
+                        : CompletableFuture.completedFuture(Collections.singletonMap("role", "user"));
+            }
+
+            @Override
+            public Duration getCacheTtl() {
+                return Duration.ofMinutes(1);
+            }
+
+            @Override
+            public boolean isRequired() {
+                return false;
+            }
+        };
+        JwtEnrichmentPipeline pipeline = new JwtEnrichmentPipeline(Collections.singletonList(flaky), metrics, 10L, 16);
+
+        assertFalse(claims(pipeline).containsKey("role"));
+        assertFalse(stuck.isDone());
+        assertEquals("user", claims(pipeline).get("role"));
+        assertEquals(2, calls.get());
+    }
+
+    private static Claims claims(JwtEnrichmentPipeline pipeline) {
+        JwtBuilder builder = Jwts.builder().setSubject("GACCOUNT");
+        pipeline.start("GACCOUNT").addTo(builder);
+        return Jwts.parser().parseClaimsJwt(builder.compact()).getBody();
+    }
+
+    /**
+     * Completes with the claims, or never completes when they are {@code null}.
+     */
+    private static AsyncJwtEnrichInterface enricher(Map<String, Object> claims, Duration ttl, boolean required) {
+        return new AsyncJwtEnrichInterface() {
+            @Override
+            public CompletableFuture<Map<String, Object>> enrich(String publicKey) {
+                return claims == null ? new CompletableFuture<>() : CompletableFuture.completedFuture(claims);
+            }
+
+            @Override
+            public Duration getCacheTtl() {
+                return ttl;
+            }
+
+            @Override
+            public boolean isRequired() {
+                return required;
+            }
+        };
+    }
+}
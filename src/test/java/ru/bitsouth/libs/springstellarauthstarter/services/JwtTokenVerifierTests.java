@@ -0,0 +1,76 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.bitsouth.libs.springstellarauthstarter.configuration.StellarAuthConfigurationProperties;
+import ru.bitsouth.libs.springstellarauthstarter.configuration.StellarAuthConfigurationProperties.LogMode;
+import ru.bitsouth.libs.springstellarauthstarter.services.jwt.HmacJwtSigningKey;
+import ru.bitsouth.libs.springstellarauthstarter.services.jwt.JwtKeySet;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtTokenVerifierTests {
+    private final StellarAuthConfigurationProperties properties = new StellarAuthConfigurationProperties();
+    private final JwtKeySet jwtKeySet = new JwtKeySet(new HmacJwtSigningKey("test-secret"), Collections.emptyList());
+    private final JwtTokenCreator creator;
+    private final JwtTokenVerifier verifier;
+    private final TokenRevocationList revocationList = new TokenRevocationList(1024, 0.01, 60L);
+
+    JwtTokenVerifierTests() {
+        StellarAuthMetrics metrics = new StellarAuthMetrics(new SimpleMeterRegistry());
+        creator = new JwtTokenCreator(
+                properties, Collections.emptyList(), jwtKeySet,
+                new JwtEnrichmentPipeline(Collections.emptyList(), metrics, 1000L, 16),
+                metrics, new StellarAuthEventLog(LogMode.PLAIN, 1.0)
+        );
+        verifier = new JwtTokenVerifier(properties, jwtKeySet, revocationList);
+    }
+
+    @Test
+    void verifiesAndCachesIssuedToken() {
+        String token = creator.issue("GACCOUNT", "ABCDEF");
+
+        Claims claims = verifier.verify(token);
+        assertEquals("GACCOUNT", claims.getSubject());
+        assertEquals("ABCDEF", claims.getId());
+        assertSame(claims, verifier.verify(new String(token.toCharArray())));
+    }
+
+    @Test
+    void rejectsRevokedTokenEvenWhenCached() {
+        String token = creator.issue("GACCOUNT", "ABCDEF");
+        String other = creator.issue("GACCOUNT", "012345");
+        verifier.verify(token);
+
+        revocationList.revokeToken("ABCDEF", System.currentTimeMillis() / 1000L + 60);
+        assertThrows(JwtException.class, () -> verifier.verify(token));
+        assertEquals("012345", verifier.verify(other).getId());
+
+        revocationList.revokeSubject("GACCOUNT", System.currentTimeMillis() / 1000L, System.currentTimeMillis() / 1000L + 60);
+        assertThrows(JwtException.class, () -> verifier.verify(other));
+    }
+
+    @Test
+    void rejectsCachedTokenOfRotatedOutKey() {
+        String token = creator.issue("GACCOUNT", "ABCDEF");
+        verifier.verify(token);
+
+        jwtKeySet.reload(new HmacJwtSigningKey("next-secret"), Collections.emptyList());
+        assertThrows(JwtException.class, () -> verifier.verify(token));
+        assertEquals("GACCOUNT", verifier.verify(creator.issue("GACCOUNT", "012345")).getSubject());
+    }
+
+    @Test
+    void rejectsTamperedToken() {
+        String token = creator.issue("GACCOUNT", "ABCDEF");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> verifier.verify(tampered));
+    }
+}
@@ -0,0 +1,39 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedFileConsumedChallengeRegistryTests {
+    private final long now = System.currentTimeMillis() / 1000L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void remembersConsumedHashesAfterReopening() throws IOException {
+        Path file = directory.resolve("replay");
+        byte[] hash = randomHash();
+
+        MappedFileConsumedChallengeRegistry registry = new MappedFileConsumedChallengeRegistry(file, 1024);
+        assertTrue(registry.markConsumed(hash, now + 300));
+        registry.close();
+
+        MappedFileConsumedChallengeRegistry reopened = new MappedFileConsumedChallengeRegistry(file, 64);
+        assertFalse(reopened.markConsumed(hash, now + 300));
+        assertTrue(reopened.markConsumed(randomHash(), now + 300));
+        reopened.close();
+    }
+
+    private static byte[] randomHash() {
+        byte[] hash = new byte[32];
+        ThreadLocalRandom.current().nextBytes(hash);
+        return hash;
+    }
+}
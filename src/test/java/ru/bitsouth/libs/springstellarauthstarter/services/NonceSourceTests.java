@@ -0,0 +1,52 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NonceSourceTests {
+
+    @Test
+    void handsOutEveryNonceOnceAcrossRefills() {
+        NonceSource source = new NonceSource(32, 4, 1);
+        Set<ByteBuffer> nonces = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < 100; i++) {
+            byte[] nonce = source.next();
+            assertEquals(32, nonce.length);
+            assertTrue(nonces.add(ByteBuffer.wrap(nonce)));
+        }
+    }
+
+    @Test
+    void handsOutUniqueNoncesToConcurrentThreads() throws Exception {
+        NonceSource source = new NonceSource(32, 16, 2);
+        Set<ByteBuffer> nonces = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 1000; j++) {
+                        nonces.add(ByteBuffer.wrap(source.next()));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(8000, nonces.size());
+    }
+}
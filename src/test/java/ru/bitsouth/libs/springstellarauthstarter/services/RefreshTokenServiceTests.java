@@ -0,0 +1,95 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.bitsouth.libs.springstellarauthstarter.configuration.StellarAuthConfigurationProperties;
+import ru.bitsouth.libs.springstellarauthstarter.configuration.StellarAuthConfigurationProperties.LogMode;
+import ru.bitsouth.libs.springstellarauthstarter.services.jwt.HmacJwtSigningKey;
+import ru.bitsouth.libs.springstellarauthstarter.services.jwt.JwtKeySet;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RefreshTokenServiceTests {
+    private final StellarAuthConfigurationProperties properties = new StellarAuthConfigurationProperties();
+    private final JwtKeySet jwtKeySet = new JwtKeySet(new HmacJwtSigningKey("test-secret"), Collections.emptyList());
+    private final TokenRevocationList revocationList = new TokenRevocationList(1024, 0.01, 60L);
+    private final JwtTokenVerifier verifier = new JwtTokenVerifier(properties, jwtKeySet, revocationList);
+    private final JwtTokenCreator creator;
+    private final RefreshTokenService service;
+
+    RefreshTokenServiceTests() {
+        StellarAuthMetrics metrics = new StellarAuthMetrics(new SimpleMeterRegistry());
+        creator = new JwtTokenCreator(
+                properties, Collections.emptyList(), jwtKeySet,
+                new JwtEnrichmentPipeline(Collections.emptyList(), metrics, 1000L, 16),
+                metrics, new StellarAuthEventLog(LogMode.PLAIN, 1.0)
+        );
+        service = new RefreshTokenService(properties, new InMemoryRefreshTokenStore(16, 60L), creator, revocationList);
+    }
+
+    @Test
+    void rotatesRefreshTokenAndKeepsSession() {
+        String refreshToken = service.issue("GACCOUNT", "ABCDEF");
+
+        IssuedTokens tokens = service.refresh(refreshToken);
+        assertEquals("GACCOUNT", verifier.verify(tokens.getToken()).getSubject());
+        assertEquals("ABCDEF", verifier.verify(tokens.getToken()).getId());
+        assertNotEquals(refreshToken, tokens.getRefreshToken());
+        service.refresh(tokens.getRefreshToken());
+    }
+
+    @Test
+    void revokesSessionWhenRotatedOutTokenIsReused() {
+        String refreshToken = service.issue("GACCOUNT", "ABCDEF");
+        IssuedTokens tokens = service.refresh(refreshToken);
+
+        assertThrows(RefreshTokenReusedException.class, () -> service.refresh(refreshToken));
+        assertThrows(InvalidRefreshTokenException.class, () -> service.refresh(tokens.getRefreshToken()));
+    }
+
+    @Test
+    void refusesSessionOfRevokedSubject() {
+        String refreshToken = service.issue("GACCOUNT", "ABCDEF");
+        long now = System.currentTimeMillis() / 1000L;
+
+        revocationList.revokeSubject("GACCOUNT", now, now + 60);
+        assertThrows(InvalidRefreshTokenException.class, () -> service.refresh(refreshToken));
+    }
+
+    @Test
+    void revokesSession() {
+        String refreshToken = service.issue("GACCOUNT", "ABCDEF");
+
+        service.revoke(refreshToken);
+        assertThrows(InvalidRefreshTokenException.class, () -> service.refresh(refreshToken));
+    }
+
+    @Test
+    void issuesNoRefreshTokenWhenStoreIsFull() {
+        RefreshTokenService full = new RefreshTokenService(
+                properties, new InMemoryRefreshTokenStore(1, 60L), creator, revocationList
+        );
+        String refreshToken = full.issue("GACCOUNT", "ABCDEF");
+
+        assertNull(full.issue("GOTHER", "123456"));
+        full.refresh(refreshToken);
+    }
+
+    @Test
+    void makesRoomBySweepingExpiredSessions() {
+        InMemoryRefreshTokenStore store = new InMemoryRefreshTokenStore(1, 60L);
+        long now = System.currentTimeMillis() / 1000L;
+        assertTrue(store.save(new RefreshSession("ABCDEF", "GACCOUNT", new byte[32], now - 60, now - 1)));
+
+        assertTrue(store.save(new RefreshSession("123456", "GOTHER", new byte[32], now, now + 60)));
+        assertNull(store.get("ABCDEF"));
+        assertFalse(store.save(new RefreshSession("7890AB", "GTHIRD", new byte[32], now, now + 60)));
+    }
+}
@@ -0,0 +1,52 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.stellar.sdk.KeyPair;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ServerKeyRingFileWatcherTests {
+    @TempDir
+    Path directory;
+
+    @Test
+    void rotatesActiveKeyAndKeepsPreviousOneAccepted() throws IOException {
+        KeyPair previous = KeyPair.random();
+        KeyPair next = KeyPair.random();
+        Path file = directory.resolve("keys");
+        write(file, "# active", new String(previous.getSecretSeed()));
+
+        ServerKeyRing ring = ServerKeyRingFileWatcher.load(file);
+        assertEquals(previous.getAccountId(), ring.getActiveKey().getAccountId());
+
+        write(file, new String(next.getSecretSeed()), "", previous.getAccountId());
+        new ServerKeyRingFileWatcher(ring, file, 1L).reload();
+
+        assertEquals(next.getAccountId(), ring.getActiveKey().getAccountId());
+        assertEquals(2, ring.getVerificationKeys().size());
+        assertArrayEquals(previous.getPublicKey(), ring.getVerificationKeys().get(1).getPublicKey());
+        assertFalse(ring.getVerificationKeys().get(1).canSign());
+    }
+
+    @Test
+    void rejectsFileWithoutActiveSeed() throws IOException {
+        Path file = directory.resolve("keys");
+        write(file, KeyPair.random().getAccountId());
+
+        assertThrows(RuntimeException.class, () -> ServerKeyRingFileWatcher.load(file));
+    }
+
+    private static void write(Path file, String... lines) throws IOException {
+        Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+    }
+}
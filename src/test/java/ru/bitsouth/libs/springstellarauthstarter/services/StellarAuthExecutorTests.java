@@ -0,0 +1,61 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StellarAuthExecutorTests {
+
+    @Test
+    void rethrowsTaskException() {
+        StellarAuthExecutor executor = new StellarAuthExecutor(new ThreadPoolExecutor(
+                1, 1, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1)
+        ));
+        try {
+            assertNotEquals(Thread.currentThread().getName(), executor.call(() -> Thread.currentThread().getName()));
+            RuntimeException e = assertThrows(RuntimeException.class, () -> executor.call(() -> {
+                throw new RuntimeException("Wrong.");
+            }));
+            assertEquals("Wrong.", e.getMessage());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsTasksWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        StellarAuthExecutor executor = new StellarAuthExecutor(new ThreadPoolExecutor(
+                1, 1, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1)
+        ));
+        try {
+            executor.supplyAsync(() -> await(release));
+            executor.supplyAsync(() -> await(release));
+            assertThrows(ServerBusyException.class, () -> executor.call(() -> "late"));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void runsInlineWithoutPool() {
+        assertEquals(Thread.currentThread().getName(),
+                StellarAuthExecutor.inline().call(() -> Thread.currentThread().getName()));
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StellarAuthMetricsTests {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final StellarAuthMetrics metrics = new StellarAuthMetrics(registry);
+
+    @Test
+    void countsFailuresByCheck() {
+        metrics.recordFailure(StellarAuthMetrics.Check.SERVER_SIGNATURE);
+        metrics.recordFailure(StellarAuthMetrics.Check.SERVER_SIGNATURE);
+
+        assertEquals(2.0, registry.get("stellar.auth.check.failures").tag("check", "server_signature").counter().count());
+        assertEquals(0.0, registry.get("stellar.auth.check.failures").tag("check", "replay").counter().count());
+    }
+
+    @Test
+    void timesEnrichersByClass() {
+        metrics.recordEnricher(String.class, TimeUnit.MILLISECONDS.toNanos(3));
+
+        assertEquals(3.0, registry.get("stellar.auth.jwt.enricher")
+                .tag("enricher", String.class.getName())
+                .timer()
+                .totalTime(TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,126 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.http.HttpHeaders;
+import org.stellar.sdk.KeyPair;
+import ru.bitsouth.libs.springstellarauthstarter.configuration.StellarAuthConfigurationProperties;
+import ru.bitsouth.libs.springstellarauthstarter.configuration.StellarAuthConfigurationProperties.Toml.Currency;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StellarTomlServiceTests {
+    private final StellarAuthConfigurationProperties properties = new StellarAuthConfigurationProperties();
+    private final KeyPair serverKey = KeyPair.random();
+    private final ServerKeyRing serverKeyRing = new ServerKeyRing(serverKey, Collections.emptyList());
+    private final KeyPair testnetKey = KeyPair.random();
+    private final StellarTomlService service = new StellarTomlService(properties, new HomeDomains(Arrays.asList(
+            new HomeDomain("example.com", properties.getNetworkPassphrase(), serverKeyRing),
+            new HomeDomain("testnet.example.com", "Test SDF Network ; September 2015",
+                    new ServerKeyRing(testnetKey, Collections.emptyList()))
+    )));
+
+    @Test
+    void rendersConfiguredFields() {
+        Currency currency = new Currency();
+        currency.setCode("USD");
+        currency.setDisplayDecimals(2);
+        currency.setDesc("Say \"hi\"");
+        properties.getToml().getCurrencies().add(currency);
+        properties.getToml().getAccounts().add(serverKey.getAccountId());
+        properties.getToml().getDocumentation().setOrgName("Sample");
+
+        assertEquals("VERSION=\"2.0.0\"\n"
+                + "NETWORK_PASSPHRASE=\"Public Global Stellar Network ; September 2015\"\n"
+                + "SIGNING_KEY=\"" + serverKey.getAccountId() + "\"\n"
+                + "WEB_AUTH_ENDPOINT=\"http://localhost:8080/auth\"\n"
+                + "ACCOUNTS=[\"" + serverKey.getAccountId() + "\"]\n"
+                + "\n[DOCUMENTATION]\n"
+                + "ORG_NAME=\"Sample\"\n"
+                + "\n[[CURRENCIES]]\n"
+                + "code=\"USD\"\n"
+                + "display_decimals=2\n"
+                + "desc=\"Say \\\"hi\\\"\"\n", service.getToml(null));
+    }
+
+    @Test
+    void rendersAgainOnlyAfterRotation() throws IOException {
+        StellarToml toml = service.getDocument("example.com");
+        assertSame(toml, service.getDocument(null));
+        assertSame(toml, service.getDocument("unknown.example.com"));
+        assertArrayEquals(toml.getBody(), gunzip(toml.getGzipBody()));
+
+        KeyPair rotated = KeyPair.random();
+        serverKeyRing.reload(rotated, Collections.singletonList(serverKey));
+        StellarToml reloaded = service.getDocument(null);
+        assertNotEquals(toml.getEtag(), reloaded.getEtag());
+        assertTrue(new String(reloaded.getBody(), StandardCharsets.UTF_8).contains(rotated.getAccountId()));
+    }
+
+    @Test
+    void rendersAgainAfterKeyRingReloadOrEnvironmentChange() {
+        StellarToml toml = service.getDocument(null);
+        serverKeyRing.reload(serverKey, Collections.emptyList());
+        StellarToml reloaded = service.getDocument(null);
+        assertNotSame(toml, reloaded);
+
+        properties.getToml().setHorizonUrl("https://horizon.example.com");
+        service.onApplicationEvent(new ApplicationEvent(this) {
+        });
+        assertTrue(service.getToml(null).contains("HORIZON_URL=\"https://horizon.example.com\"\n"));
+        assertFalse(service.supportsEventType(ApplicationEvent.class));
+    }
+
+    @Test
+    void rendersDocumentOfRequestedHost() {
+        String toml = service.getToml("testnet.example.com");
+        assertTrue(toml.contains("NETWORK_PASSPHRASE=\"Test SDF Network ; September 2015\"\n"));
+        assertTrue(toml.contains("SIGNING_KEY=\"" + testnetKey.getAccountId() + "\"\n"));
+    }
+
+    @Test
+    void answersConditionalRequests() {
+        StellarToml toml = service.getDocument(null);
+        HttpHeaders headers = new HttpHeaders();
+        assertFalse(toml.isNotModified(headers));
+        assertFalse(toml.acceptsGzip(headers));
+
+        headers.setIfModifiedSince(toml.getLastModified());
+        assertTrue(toml.isNotModified(headers));
+        headers.setIfNoneMatch("\"other\"");
+        assertFalse(toml.isNotModified(headers));
+        headers.setIfNoneMatch(toml.getGzipEtag());
+        assertTrue(toml.isNotModified(headers));
+
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0");
+        assertFalse(toml.acceptsGzip(headers));
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8");
+        assertTrue(toml.acceptsGzip(headers));
+    }
+
+    private static byte[] gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            byte[] buffer = new byte[4096];
+            int length = 0;
+            for (int read; (read = in.read(buffer, length, buffer.length - length)) > 0; ) {
+                length += read;
+            }
+            byte[] result = new byte[length];
+            System.arraycopy(buffer, 0, result, 0, length);
+            return result;
+        }
+    }
+}
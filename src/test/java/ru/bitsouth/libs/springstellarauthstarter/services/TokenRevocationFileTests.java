@@ -0,0 +1,42 @@
+package ru.bitsouth.libs.springstellarauthstarter.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenRevocationFileTests {
+    private final long now = System.currentTimeMillis() / 1000L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void appliesLinesAppendedByOtherNodes() throws IOException {
+        Path file = directory.resolve("revocations");
+        TokenRevocationList written = new TokenRevocationList(1024, 0.01, 60L);
+        TokenRevocationList tailed = new TokenRevocationList(1024, 0.01, 60L);
+        TokenRevocationFile writer = new TokenRevocationFile(written, file, 60L);
+        TokenRevocationFile reader = new TokenRevocationFile(tailed, file, 60L);
+
+        writer.appendToken("ABCDEF", now + 60);
+        Files.write(file, ("subject GACCOUNT " + now + " " + (now + 60) + "\nsubject GOTHER ")
+                .getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        reader.tail();
+
+        assertTrue(tailed.isRevoked("ABCDEF", null, null));
+        assertTrue(tailed.isRevoked(null, "GACCOUNT", null));
+        assertFalse(tailed.isRevoked("012345", "GOTHER", null));
+
+        Files.write(file, (now + " " + (now + 60) + "\n").getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        reader.tail();
+        assertTrue(tailed.isRevoked(null, "GOTHER", null));
+    }
+}
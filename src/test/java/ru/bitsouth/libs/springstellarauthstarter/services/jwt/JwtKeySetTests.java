@@ -0,0 +1,74 @@
+package ru.bitsouth.libs.springstellarauthstarter.services.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.stellar.sdk.KeyPair;
+
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtKeySetTests {
+
+    @Test
+    void signsAndVerifiesEdDsa() {
+        JwtKeySet keySet = new JwtKeySet(new EdDsaJwtSigningKey(KeyPair.random()), Collections.emptyList());
+
+        Claims claims = keySet.verify(keySet.sign(Jwts.builder().setSubject("GACCOUNT")));
+        assertEquals("GACCOUNT", claims.getSubject());
+        assertTrue(keySet.getJwks().contains("\"kty\":\"OKP\""));
+    }
+
+    @Test
+    void signsAndVerifiesEs256() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        java.security.KeyPair keyPair = generator.generateKeyPair();
+        JwtKeySet keySet = new JwtKeySet(
+                new EcJwtSigningKey((ECPrivateKey) keyPair.getPrivate(), (ECPublicKey) keyPair.getPublic()),
+                Collections.emptyList()
+        );
+
+        Claims claims = keySet.verify(keySet.sign(Jwts.builder().setSubject("GACCOUNT")));
+        assertEquals("GACCOUNT", claims.getSubject());
+        assertTrue(keySet.getJwks().contains("\"crv\":\"P-256\""));
+    }
+
+    @Test
+    void acceptsTokensOfVerificationKeysOnly() {
+        EdDsaJwtSigningKey previous = new EdDsaJwtSigningKey(KeyPair.random());
+        JwtKeySet current = new JwtKeySet(
+                new EdDsaJwtSigningKey(KeyPair.random()), Collections.singletonList(previous)
+        );
+        String token = new JwtKeySet(previous, Collections.emptyList()).sign(Jwts.builder().setSubject("GACCOUNT"));
+        String foreign = new JwtKeySet(new EdDsaJwtSigningKey(KeyPair.random()), Collections.emptyList())
+                .sign(Jwts.builder().setSubject("GACCOUNT"));
+
+        assertEquals("GACCOUNT", current.verify(token).getSubject());
+        assertThrows(JwtException.class, () -> current.verify(foreign));
+    }
+
+    @Test
+    void reloadsSigningKeyAndJwks() {
+        EdDsaJwtSigningKey previous = new EdDsaJwtSigningKey(KeyPair.random());
+        EdDsaJwtSigningKey next = new EdDsaJwtSigningKey(KeyPair.random());
+        JwtKeySet keySet = new JwtKeySet(previous, Collections.emptyList());
+        String token = keySet.sign(Jwts.builder().setSubject("GACCOUNT"));
+
+        keySet.reload(next, Collections.singletonList(previous));
+        assertEquals("GACCOUNT", keySet.verify(token).getSubject());
+        assertEquals(next.getKeyId(), keySet.getSigningKey().getKeyId());
+        assertTrue(keySet.getJwks().contains(String.valueOf(next.getKeyId())));
+
+        keySet.reload(next, Collections.emptyList());
+        assertThrows(JwtException.class, () -> keySet.verify(token));
+    }
+}
@@ -0,0 +1,46 @@
+package ru.bitsouth.libs.springstellarauthstarter.services.xdr;
+
+import org.junit.jupiter.api.Test;
+import org.stellar.sdk.KeyPair;
+import org.stellar.sdk.Network;
+import org.stellar.sdk.Transaction;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChallengeTemplateTests {
+    private final KeyPair server = KeyPair.random();
+    private final byte[] networkId = Network.PUBLIC.getNetworkId();
+
+    @Test
+    void patchesClientNonceAndMaxTime() throws Exception {
+        ChallengeTemplate template = new ChallengeTemplate(server, networkId, 0L, 100, "Sample auth");
+
+        for (int i = 0; i < 3; i++) {
+            KeyPair client = KeyPair.random();
+            byte[] nonce = new byte[ChallengeTemplate.NONCE_LENGTH];
+            ThreadLocalRandom.current().nextBytes(nonce);
+            String challenge = template.sign(client.getPublicKey(), nonce, 1000L + i);
+
+            ChallengeTransaction tx = ChallengeTransaction.fromEnvelopeXdrBase64(challenge);
+            byte[] hash = tx.hash(networkId);
+            assertTrue(tx.isSourceAccount(server.getPublicKey()));
+            assertEquals(0L, tx.getMinTime());
+            assertEquals(1000L + i, tx.getMaxTime());
+            assertArrayEquals(client.getPublicKey(), tx.getOperationSourceAccount());
+            assertEquals("Sample auth", tx.getDataName());
+            assertArrayEquals(nonce, tx.getDataValue());
+            assertEquals(1, tx.getSignatureCount());
+            assertTrue(server.verify(hash, tx.getSignature(0)));
+
+            Transaction sdkTx = (Transaction) Transaction.fromEnvelopeXdr(challenge, Network.PUBLIC);
+            assertArrayEquals(sdkTx.hash(), hash);
+            assertEquals(server.getAccountId(), sdkTx.getSourceAccount());
+            assertEquals(0L, sdkTx.getSequenceNumber());
+            assertEquals(100, sdkTx.getFee());
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package ru.bitsouth.libs.springstellarauthstarter.services.xdr;
+
+import org.junit.jupiter.api.Test;
+import org.stellar.sdk.Account;
+import org.stellar.sdk.KeyPair;
+import org.stellar.sdk.ManageDataOperation;
+import org.stellar.sdk.Network;
+import org.stellar.sdk.TimeBounds;
+import org.stellar.sdk.Transaction;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The parser against envelopes built and signed by the SDK. Layouts the SDK here can't build (v0, muxed accounts,
+ * memos, other operations) are spliced into its v1 envelope at the offsets below.
+ */
+class ChallengeTransactionTests {
+    private static final int SOURCE_ACCOUNT = 4;
+    private static final int MEMO = 72;
+    private static final int OPERATION_SOURCE_ACCOUNT = 84;
+    private static final int OPERATION_TYPE = 120;
+    private static final int DATA_NAME_PADDING = 139;
+    private static final int SIGNATURES = 184;
+    private static final String DATA_NAME = "Sample auth";
+
+    private final KeyPair server = KeyPair.random();
+    private final KeyPair client = KeyPair.random();
+
+    @Test
+    void readsChallengeBuiltBySdk() {
+        byte[] nonce = new byte[32];
+        nonce[0] = 42;
+        Transaction sdkTx = new Transaction.Builder(new Account(server.getAccountId(), 0L), Network.PUBLIC)
+                .addOperation(new ManageDataOperation.Builder("Sample auth", nonce)
+                        .setSourceAccount(client.getAccountId())
+                        .build())
+                .addTimeBounds(new TimeBounds(10L, 20L))
+                .setBaseFee(100)
+                .build();
+        sdkTx.sign(server);
+        sdkTx.sign(client);
+
+        ChallengeTransaction tx = ChallengeTransaction.fromEnvelopeXdrBase64(sdkTx.toEnvelopeXdrBase64());
+
+        byte[] hash = tx.hash(Network.PUBLIC.getNetworkId());
+        assertArrayEquals(sdkTx.hash(), hash);
+        assertTrue(tx.isSourceAccount(server.getPublicKey()));
+        assertFalse(tx.isSourceAccount(client.getPublicKey()));
+        assertTrue(tx.hasTimeBounds());
+        assertEquals(10L, tx.getMinTime());
+        assertEquals(20L, tx.getMaxTime());
+        assertEquals(1, tx.getOperationCount());
+        assertArrayEquals(client.getPublicKey(), tx.getOperationSourceAccount());
+        assertEquals("Sample auth", tx.getDataName());
+        assertArrayEquals(nonce, tx.getDataValue());
+        assertEquals(2, tx.getSignatureCount());
+        assertEquals(ChallengeTransaction.signatureHint(server.getPublicKey()), tx.getSignatureHint(0));
+        assertEquals(ChallengeTransaction.signatureHint(client.getPublicKey()), tx.getSignatureHint(1));
+        assertTrue(server.verify(hash, tx.getSignature(0)));
+        assertTrue(client.verify(hash, tx.getSignature(1)));
+    }
+
+    @Test
+    void rejectsTruncatedEnvelope() {
+        Transaction sdkTx = new Transaction.Builder(new Account(server.getAccountId(), 0L), Network.PUBLIC)
+                .addOperation(new ManageDataOperation.Builder("Sample auth", new byte[32])
+                        .setSourceAccount(client.getAccountId())
+                        .build())
+                .addTimeBounds(new TimeBounds(10L, 20L))
+                .setBaseFee(100)
+                .build();
+        byte[] xdr = Base64.getDecoder().decode(sdkTx.toEnvelopeXdrBase64());
+        byte[] truncated = new byte[xdr.length - 4];
+        System.arraycopy(xdr, 0, truncated, 0, truncated.length);
+
+        assertThrows(RuntimeException.class, () -> ChallengeTransaction.fromEnvelopeXdr(truncated));
+        assertThrows(RuntimeException.class, () -> ChallengeTransaction.fromEnvelopeXdrBase64("not base64!"));
+    }
+
+    @Test
+    void readsV0EnvelopeWithHashOfItsV1Form() {
+        Transaction sdkTx = challenge(server, client);
+        byte[] v0 = splice(xdr(sdkTx), SOURCE_ACCOUNT, 4);
+        System.arraycopy(ints(ChallengeTransaction.ENVELOPE_TYPE_TX_V0), 0, v0, 0, 4);
+
+        ChallengeTransaction tx = ChallengeTransaction.fromEnvelopeXdr(v0);
+
+        assertArrayEquals(sdkTx.hash(), tx.hash(Network.PUBLIC.getNetworkId()));
+        assertTrue(tx.isSourceAccount(server.getPublicKey()));
+        assertArrayEquals(client.getPublicKey(), tx.getOperationSourceAccount());
+        assertEquals(DATA_NAME, tx.getDataName());
+        assertTrue(server.verify(sdkTx.hash(), tx.getSignature(0)));
+    }
+
+    @Test
+    void readsKeysOfMuxedAccounts() {
+        byte[] xdr = xdr(challenge(server, client));
+        xdr = splice(xdr, OPERATION_SOURCE_ACCOUNT, 4, concat(ints(ChallengeTransaction.KEY_TYPE_MUXED_ED25519, 0, 7)));
+        xdr = splice(xdr, SOURCE_ACCOUNT, 4, concat(ints(ChallengeTransaction.KEY_TYPE_MUXED_ED25519, 0, 42)));
+
+        ChallengeTransaction tx = ChallengeTransaction.fromEnvelopeXdr(xdr);
+
+        assertTrue(tx.isSourceAccount(server.getPublicKey()));
+        assertArrayEquals(server.getPublicKey(), tx.getSourceAccount());
+        assertArrayEquals(client.getPublicKey(), tx.getOperationSourceAccount());
+        assertEquals(DATA_NAME, tx.getDataName());
+        assertEquals(2, tx.getSignatureCount());
+    }
+
+    @Test
+    void skipsEveryMemoType() {
+        byte[] xdr = xdr(challenge(server, client));
+        byte[][] memos = {
+                concat(ints(1, 5), "hello".getBytes(StandardCharsets.UTF_8), new byte[3]),
+                concat(ints(2, 0, 42)),
+                concat(ints(3), new byte[32]),
+                concat(ints(4), new byte[32])
+        };
+        for (byte[] memo : memos) {
+            ChallengeTransaction tx = ChallengeTransaction.fromEnvelopeXdr(splice(xdr, MEMO, 4, memo));
+
+            assertEquals(DATA_NAME, tx.getDataName());
+            assertArrayEquals(client.getPublicKey(), tx.getOperationSourceAccount());
+        }
+
+        byte[] tooLongText = splice(xdr, MEMO, 4, ints(1, 29), new byte[32]);
+        assertThrows(RuntimeException.class, () -> ChallengeTransaction.fromEnvelopeXdr(tooLongText));
+        assertThrows(RuntimeException.class, () -> ChallengeTransaction.fromEnvelopeXdr(splice(xdr, MEMO, 4, ints(5))));
+    }
+
+    @Test
+    void rejectsOtherOperations() {
+        byte[] xdr = xdr(challenge(server, client));
+        System.arraycopy(ints(ChallengeTransaction.MANAGE_DATA + 1), 0, xdr, OPERATION_TYPE, 4);
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> ChallengeTransaction.fromEnvelopeXdr(xdr));
+        assertEquals("Challenge has no manageData operation.", e.getMessage());
+    }
+
+    @Test
+    void rejectsNonZeroPadding() {
+        byte[] xdr = xdr(challenge(server, client));
+        assertEquals(0, xdr[DATA_NAME_PADDING]);
+        xdr[DATA_NAME_PADDING] = 1;
+
+        assertThrows(RuntimeException.class, () -> ChallengeTransaction.fromEnvelopeXdr(xdr));
+    }
+
+    @Test
+    void rejectsMoreThanTwentySignatures() {
+        byte[] xdr = xdr(challenge(server));
+        byte[] signature = Arrays.copyOfRange(xdr, SIGNATURES + 4, xdr.length);
+        byte[][] signatures = new byte[21][];
+        Arrays.fill(signatures, signature);
+        byte[] tooMany = splice(xdr, SIGNATURES, xdr.length - SIGNATURES, concat(ints(21), concat(signatures)));
+
+        assertThrows(RuntimeException.class, () -> ChallengeTransaction.fromEnvelopeXdr(tooMany));
+    }
+
+    @Test
+    void rejectsTrailingBytes() {
+        byte[] xdr = xdr(challenge(server, client));
+
+        assertThrows(RuntimeException.class, () -> ChallengeTransaction.fromEnvelopeXdr(concat(xdr, ints(0))));
+    }
+
+    @Test
+    void readsEverySignature() {
+        KeyPair cosigner = KeyPair.random();
+        Transaction sdkTx = challenge(server, client, cosigner);
+
+        ChallengeTransaction tx = ChallengeTransaction.fromEnvelopeXdr(xdr(sdkTx));
+
+        KeyPair[] signers = {server, client, cosigner};
+        assertEquals(signers.length, tx.getSignatureCount());
+        for (int i = 0; i < signers.length; i++) {
+            assertEquals(ChallengeTransaction.signatureHint(signers[i].getPublicKey()), tx.getSignatureHint(i));
+            assertTrue(signers[i].verify(sdkTx.hash(), tx.getSignature(i)));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> tx.getSignature(signers.length));
+    }
+
+    private Transaction challenge(KeyPair... signers) {
+        Transaction sdkTx = new Transaction.Builder(new Account(server.getAccountId(), 0L), Network.PUBLIC)
+                .addOperation(new ManageDataOperation.Builder(DATA_NAME, new byte[32])
+                        .setSourceAccount(client.getAccountId())
+                        .build())
+                .addTimeBounds(new TimeBounds(10L, 20L))
+                .setBaseFee(100)
+                .build();
+        for (KeyPair signer : signers) {
+            sdkTx.sign(signer);
+        }
+        return sdkTx;
+    }
+
+    private static byte[] xdr(Transaction sdkTx) {
+        return Base64.getDecoder().decode(sdkTx.toEnvelopeXdrBase64());
+    }
+
+    private static byte[] splice(byte[] xdr, int offset, int length, byte[]... inserted) {
+        return concat(Arrays.copyOfRange(xdr, 0, offset), concat(inserted),
+                Arrays.copyOfRange(xdr, offset + length, xdr.length));
+    }
+
+    private static byte[] ints(int... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4);
+        for (int value : values) {
+            buffer.putInt(value);
+        }
+        return buffer.array();
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.write(part, 0, part.length);
+        }
+        return out.toByteArray();
+    }
+}